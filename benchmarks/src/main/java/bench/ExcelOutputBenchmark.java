@@ -0,0 +1,96 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import utils.ExcelResultWriter;
+import utils.ExcelWriters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output path cost vs sheet size.
+ * - static ExcelWriters calls (each one parses and rewrites the whole workbook)
+ * - session ExcelResultWriter appending a page of rows with one flush
+ * Every invocation starts from a fresh copy of the same synthetic workbook.
+ **/
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true",
+        "-Dlog4j2.loggerContextFactory=org.apache.logging.log4j.simple.SimpleLoggerContextFactory"})
+@State(Scope.Thread)
+public class ExcelOutputBenchmark {
+
+    private static final int PAGE_ROWS = 30;
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    @Param({"1", "20"})
+    public int sheets;
+
+    private Path dir;
+    private Path template;
+    private String work;
+
+    @Setup(Level.Trial)
+    public void createTemplate() throws IOException {
+        dir = Files.createTempDirectory("excel-bench");
+        template = dir.resolve("template.xlsx");
+        SyntheticWorkbooks.cityResults(template, sheets, rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshCopy() throws IOException {
+        Path copy = dir.resolve("CityResults.xlsx");
+        Files.copy(template, copy, StandardCopyOption.REPLACE_EXISTING);
+        work = copy.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /** One row; includes the findNextWriteRowAC scan and a full workbook parse / write. */
+    @Benchmark
+    public int appendHotelRow() throws IOException {
+        return ExcelWriters.appendHotelRow(work, "City0", "Bench Hotel", "₹4,599", "8.7");
+    }
+
+    @Benchmark
+    public void ensureSheetWithHeaders() throws IOException {
+        ExcelWriters.ensureSheetWithHeaders(work, "City0");
+    }
+
+    @Benchmark
+    public void clearDataKeepHeader() throws IOException {
+        ExcelWriters.clearDataKeepHeader(work, "City0");
+    }
+
+    @Benchmark
+    public void writeCheckInOutSideBlock() throws IOException {
+        ExcelWriters.writeCheckInOutSideBlock(work, "City0", LocalDate.of(2026, 8, 22), LocalDate.of(2026, 8, 25));
+    }
+
+    /** A full result page through the session writer: one parse, one scan, one flush. */
+    @Benchmark
+    @OperationsPerInvocation(PAGE_ROWS)
+    public int sessionAppendPage() throws IOException {
+        int last = 0;
+        try (ExcelResultWriter w = ExcelResultWriter.open(work)) {
+            for (int i = 0; i < PAGE_ROWS; i++) {
+                last = w.appendHotelRow("City0", "Bench Hotel " + i, "₹4,599", "8.7");
+            }
+        }
+        return last;
+    }
+}
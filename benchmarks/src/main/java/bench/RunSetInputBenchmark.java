@@ -0,0 +1,73 @@
+package bench;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.RunSetReader;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RunSet.xlsx parsing: the original DOM data-provider loop vs the streaming RunSetReader.
+ * Both apply the same row validation (RunSetReader.validate).
+ **/
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true",
+        "-Dlog4j2.loggerContextFactory=org.apache.logging.log4j.simple.SimpleLoggerContextFactory"})
+@State(Scope.Benchmark)
+public class RunSetInputBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private Path dir;
+    private Path runSet;
+
+    @Setup(Level.Trial)
+    public void createRunSet() throws IOException {
+        dir = Files.createTempDirectory("runset-bench");
+        runSet = dir.resolve("RunSet.xlsx");
+        SyntheticWorkbooks.runSet(runSet, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(runSet);
+        Files.deleteIfExists(dir);
+    }
+
+    /** Loop from the original E2EHotelSearchTest.searchData (whole workbook DOM). */
+    @Benchmark
+    public void domLoad(Blackhole bh) throws IOException {
+        try (FileInputStream fi = new FileInputStream(runSet.toFile());
+             XSSFWorkbook wb = new XSSFWorkbook(fi)) {
+            XSSFSheet ws = wb.getSheet("SearchRuns");
+            DataFormatter fmt = new DataFormatter();
+            for (int r = 1; r <= ws.getLastRowNum(); r++) {
+                XSSFRow row = ws.getRow(r);
+                if (row == null) continue;
+                Object[] valid = RunSetReader.validate(
+                        fmt.formatCellValue(row.getCell(0)),
+                        fmt.formatCellValue(row.getCell(1)),
+                        fmt.formatCellValue(row.getCell(2)));
+                if (valid != null) bh.consume(valid);
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamingRead(Blackhole bh) throws IOException {
+        RunSetReader reader = RunSetReader.open(runSet, "SearchRuns");
+        while (reader.hasNext()) bh.consume(reader.next());
+    }
+}
@@ -0,0 +1,79 @@
+package bench;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/** Generates CityResults.xlsx / RunSet.xlsx shaped workbooks of a given size. */
+final class SyntheticWorkbooks {
+
+    private SyntheticWorkbooks() {}
+
+    /** 'sheets' city sheets (City0..), each with header + 'rows' hotel rows and the F/G date block. */
+    static void cityResults(Path file, int sheets, int rows) throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            for (int s = 0; s < sheets; s++) {
+                XSSFSheet sheet = wb.createSheet("City" + s);
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("Hotel Name");
+                header.createCell(1).setCellValue("Price");
+                header.createCell(2).setCellValue("Ratings");
+                header.createCell(5).setCellValue("Check-in");
+                header.createCell(6).setCellValue("2026-08-22");
+
+                for (int r = 1; r <= rows; r++) {
+                    Row row = sheet.createRow(r);
+                    row.createCell(0).setCellValue("Synthetic Hotel " + s + "-" + r);
+                    row.createCell(1).setCellValue("₹" + (1_000 + r * 7 % 90_000));
+                    row.createCell(2).setCellValue(String.valueOf(6.0 + (r % 40) / 10.0));
+                }
+            }
+            try (FileOutputStream fo = new FileOutputStream(file.toFile())) {
+                wb.write(fo);
+            }
+        }
+    }
+
+    /** SearchRuns sheet with header + 'rows' rows; every 10th row is invalid in some way. */
+    static void runSet(Path file, int rows) throws IOException {
+        LocalDate base = LocalDate.of(2026, 1, 1);
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet sheet = wb.createSheet("SearchRuns");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("City");
+            header.createCell(1).setCellValue("CheckIn");
+            header.createCell(2).setCellValue("CheckOut");
+
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                LocalDate in = base.plusDays(r % 300);
+                row.createCell(0).setCellValue("City" + (r % 40));
+                switch (r % 30) {
+                    case 10 -> { // blank check-out
+                        row.createCell(1).setCellValue(in.toString());
+                    }
+                    case 20 -> { // bad format
+                        row.createCell(1).setCellValue("22/08/2026");
+                        row.createCell(2).setCellValue(in.plusDays(2).toString());
+                    }
+                    case 0 -> { // check-out before check-in
+                        row.createCell(1).setCellValue(in.toString());
+                        row.createCell(2).setCellValue(in.minusDays(1).toString());
+                    }
+                    default -> {
+                        row.createCell(1).setCellValue(in.toString());
+                        row.createCell(2).setCellValue(in.plusDays(1 + r % 5).toString());
+                    }
+                }
+            }
+            try (FileOutputStream fo = new FileOutputStream(file.toFile())) {
+                wb.write(fo);
+            }
+        }
+    }
+}
@@ -1,133 +1,265 @@
 package pages;
 
 import org.openqa.selenium.*;
-import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.*;
+import utils.DomWaits;
+import utils.LocatorCache;
+import utils.StepMetrics;
+import utils.SuggestionCache;
+import utils.WaitPolicy;
 
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class HomePage {
     private final WebDriver driver;
-    private final WebDriverWait wait;
+    private final LocatorCache locators;
 
     public HomePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(30));
-        PageFactory.initElements(driver, this);
+        this.locators = new LocatorCache(driver);
     }
 
     // --- Core Search Elements ---
-    @FindBy(id = "input-auto-complete")
-    private WebElement destinationInput;
+    private static final By DESTINATION_INPUT = By.id("input-auto-complete");
+    private static final String SUGGESTIONS_CSS = ".Qrvi3L";
+    private static final By SUGGESTIONS = By.cssSelector(SUGGESTIONS_CSS);
 
-    @FindBy(className = "Qrvi3L")
-    private List<WebElement> suggestionList;
+    // --- Calendar Elements (CSS selector lists = the former XPath unions, same document order) ---
+    private static final By CALENDAR_OPEN_BUTTON =
+            By.cssSelector("button[data-testid='search-form-calendar'], button[aria-label*='calendar']");
 
-    // --- Calendar Elements ---
-    @FindBy(xpath = "//button[@data-testid='search-form-calendar' or contains(@aria-label,'calendar')]")
-    private WebElement calendarOpenButton;
+    private static final By CALENDAR_ROOT =
+            By.cssSelector("[data-testid*='calendar-popover'], [class*='calendar']");
 
-    @FindBy(xpath = "//*[contains(@data-testid,'calendar-popover') or contains(@class,'calendar')]")
-    private WebElement calendarRoot;
+    private static final String NEXT_MONTH_CSS =
+            "button[aria-label*='Next'], button[data-testid='calendar-button-next'], button[data-testid*='next']";
 
-    @FindBy(xpath = "//button[contains(@aria-label,'Next') or @data-testid='calendar-button-next' or contains(@data-testid,'next')]")
-    private WebElement nextMonthButton;
+    private static final By NEXT_MONTH_BUTTON = By.cssSelector(NEXT_MONTH_CSS);
+
+    private static final String DAY_TESTID_PREFIX = "valid-calendar-day-";
+
+    private static final SuggestionCache SUGGESTION_CACHE = SuggestionCache.shared();
+
+    /** Text and data-* attributes of a suggestion element. */
+    private static final String SUGGESTION_IDENTITY_JS =
+            "var el = arguments[0], attrs = {};" +
+            "for (var i = 0; i < el.attributes.length; i++) {" +
+            "  var a = el.attributes[i];" +
+            "  if (a.name.indexOf('data-') === 0) attrs[a.name] = a.value;" +
+            "}" +
+            "return { text: (el.innerText || el.textContent || '').trim(), attrs: attrs };";
+
+    /** Visible suggestion with this text, preferring one whose data-* attributes also match; null if none. */
+    private static final String FIND_SUGGESTION_JS =
+            "var css = arguments[0], text = arguments[1], attrs = arguments[2], candidate = null;" +
+            "var items = document.querySelectorAll(css);" +
+            "for (var i = 0; i < items.length; i++) {" +
+            "  var el = items[i];" +
+            "  if (el.getClientRects().length === 0 || (el.innerText || el.textContent || '').trim() !== text) continue;" +
+            "  var same = true;" +
+            "  for (var k in attrs) { if (el.getAttribute(k) !== attrs[k]) same = false; }" +
+            "  if (same) return el;" +
+            "  if (!candidate) candidate = el;" +
+            "}" +
+            "return candidate;";
+
+    /**
+     * Direct jump: months to advance = target month - latest visible month (taken from the
+     * visible day buttons' ISO test ids). Clicks next, waits for the re-render, re-checks,
+     * all inside one async script. Resolves with hops taken, or -1 if it could not get there.
+     */
+    private static final String JUMP_TO_DAY_JS = DomWaits.INSTALL_JS +
+            "var iso = arguments[0], nextCss = arguments[1], maxHops = arguments[2], prefix = arguments[3];" +
+            "var done = arguments[arguments.length - 1], hops = 0;" +
+            "var visible = function (el) { return !!el && el.getClientRects().length > 0; };" +
+            "var month = function (d) { var p = d.split('-'); return (+p[0]) * 12 + (+p[1]) - 1; };" +
+            "var target = function () { return document.querySelector(\"button[data-testid='\" + prefix + iso + \"']\"); };" +
+            "var needed = function () {" +
+            "  var last = null;" +
+            "  document.querySelectorAll(\"button[data-testid^='\" + prefix + \"']\").forEach(function (b) {" +
+            "    if (!visible(b)) return;" +
+            "    var d = b.getAttribute('data-testid').substring(prefix.length);" +
+            "    if (last === null || d > last) last = d;" +
+            "  });" +
+            "  return last === null ? -1 : month(iso) - month(last);" +
+            "};" +
+            "var step = function () {" +
+            "  if (visible(target())) return done(hops);" +
+            "  var n = needed();" +
+            "  var btn = document.querySelector(nextCss);" +
+            "  if (n < 1 || hops >= maxHops || !btn) return done(-1);" +
+            "  var fired = false, next = function () { if (!fired) { fired = true; requestAnimationFrame(step); } };" +
+            "  w.listeners.push(next);" +
+            "  setTimeout(next, 1000);" +
+            "  btn.click(); hops++;" +
+            "};" +
+            "step();";
 
     private By dayButton(LocalDate date) {
         String iso = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        return By.cssSelector("button[data-testid='valid-calendar-day-" + iso + "']");
+        return By.cssSelector("button[data-testid='" + DAY_TESTID_PREFIX + iso + "']");
     }
 
-    /** Type destination and click the first suggestion. */
+    /**
+     * Type destination and click the first suggestion. Cities resolved before (SuggestionCache) only get
+     * their shortest unique prefix typed, then the remembered suggestion is clicked.
+     */
     public void enterDestination(String city) {
-        WebElement searchBox = wait.until(ExpectedConditions.elementToBeClickable(destinationInput));
-        searchBox.clear();
-        searchBox.sendKeys(city);
-        wait.until(d -> !suggestionList.isEmpty() && suggestionList.get(0).isDisplayed());
-        suggestionList.get(0).click();
+        StepMetrics.time("HomePage.enterDestination", () -> {
+            WebElement searchBox = WaitPolicy.until(driver, "HomePage.destination", locators.clickable(DESTINATION_INPUT));
+            searchBox.clear();
+            Optional<SuggestionCache.Resolution> known = SUGGESTION_CACHE.get(city);
+            if (known.isPresent() && selectKnownSuggestion(searchBox, city, known.get())) return;
+
+            searchBox.clear();
+            searchBox.sendKeys(city);
+            WaitPolicy.retry("HomePage.suggestion", () -> {
+                WebElement first = WaitPolicy.until(driver, "HomePage.suggestion", d -> {
+                    List<WebElement> suggestions = locators.findAll(SUGGESTIONS); // stale while re-rendering: polled again
+                    return (!suggestions.isEmpty() && suggestions.get(0).isDisplayed()) ? suggestions.get(0) : null;
+                });
+                SuggestionCache.Resolution picked = identityOf(first);
+                first.click();
+                SUGGESTION_CACHE.put(city, new SuggestionCache.Resolution(
+                        picked.text(), picked.attributes(), searchBox.getAttribute("value")));
+            });
+        });
     }
 
     /** check-in + check-out selection. */
     public void selectDateRange(LocalDate checkIn, LocalDate checkOut) {
-        if (checkOut.isBefore(checkIn)) {
-            throw new IllegalArgumentException("Check-out date must be after check-in date.");
-        }
-        openCalendarIfClosed();
-        navigateUntilDayVisible(checkIn);
-        clickDay(checkIn);
-        navigateUntilDayVisible(checkOut);
-        clickDay(checkOut);
+        StepMetrics.time("HomePage.selectDateRange", () -> {
+            if (checkOut.isBefore(checkIn)) {
+                throw new IllegalArgumentException("Check-out date must be after check-in date.");
+            }
+            openCalendarIfClosed();
+            navigateUntilDayVisible(checkIn);
+            clickDay(checkIn);
+            navigateUntilDayVisible(checkOut);
+            clickDay(checkOut);
+        });
     }
 
     /** Adjust guests with preferred absolute XPath + Apply. */
     public void adjustGuests() {
-        // Decrease adults once (kept strategy; targeting the first button in Adults fieldset)
-//        By adultsMinus = By.xpath(
-//                "/html/body/div[1]/div[1]/div[2]/section[1]/div[2]/div/div/div/div/div/div[2]/div/section/div/div/div[1]/fieldset[1]/div/button[1]");
-        By adultsMinus = By.xpath("//button[@data-testid='adults-amount-minus-button']");
-        try {
-            wait.until(ExpectedConditions.elementToBeClickable(adultsMinus)).click();
-        } catch (TimeoutException | NoSuchElementException e) {}
+        StepMetrics.time("HomePage.adjustGuests", () -> {
+            // Decrease adults once (kept strategy; targeting the first button in Adults fieldset)
+//            By adultsMinus = By.xpath(
+//                    "/html/body/div[1]/div[1]/div[2]/section[1]/div[2]/div/div/div/div/div/div[2]/div/section/div/div/div[1]/fieldset[1]/div/button[1]");
+            By adultsMinus = By.cssSelector("button[data-testid='adults-amount-minus-button']");
+            WaitPolicy.optional(driver, "HomePage.adultsMinus", locators.clickable(adultsMinus))
+                    .ifPresent(WebElement::click);
 
-        // Apply / Done
-        By applyBtn = By.xpath("//button[text()='Apply']");
-        wait.until(ExpectedConditions.elementToBeClickable(applyBtn)).click();
+            // Apply / Done (text match: stays XPath)
+            By applyBtn = By.xpath("//button[text()='Apply']");
+            WaitPolicy.retry("HomePage.guestsApply",
+                    () -> WaitPolicy.until(driver, "HomePage.guestsApply", locators.clickable(applyBtn)).click());
+            locators.invalidate(); // search submitted; this page's elements are gone
+        });
     }
 
     // --- Helpers ---
+    /**
+     * Cache hit: types the prefix (then the rest of the name if the suggestion does not show up) and
+     * clicks the remembered suggestion. False, with the entry evicted, if it is gone or now leads
+     * to a different destination.
+     */
+    private boolean selectKnownSuggestion(WebElement searchBox, String city, SuggestionCache.Resolution known) {
+        String prefix = SUGGESTION_CACHE.prefixFor(city);
+        searchBox.sendKeys(prefix);
+        Optional<WebElement> match = WaitPolicy.optional(driver, "HomePage.knownSuggestion", d -> findSuggestion(known));
+        if (match.isEmpty() && prefix.length() < city.trim().length()) {
+            SUGGESTION_CACHE.useFullName(city);
+            searchBox.sendKeys(city.trim().substring(prefix.length()));
+            match = WaitPolicy.optional(driver, "HomePage.knownSuggestion", d -> findSuggestion(known));
+        }
+        try {
+            if (match.isPresent()) {
+                match.get().click();
+                if (known.inputValue() == null || known.inputValue().equals(searchBox.getAttribute("value"))) return true;
+            }
+        } catch (StaleElementReferenceException | ElementNotInteractableException ignored) {
+            // list re-rendered under the click: resolve from scratch
+        }
+        System.out.println("[Autocomplete] Cached suggestion for " + city + " no longer matches; resolving again");
+        SUGGESTION_CACHE.evict(city);
+        return false;
+    }
+
+    private WebElement findSuggestion(SuggestionCache.Resolution known) {
+        return (WebElement) ((JavascriptExecutor) driver).executeScript(FIND_SUGGESTION_JS,
+                SUGGESTIONS_CSS, known.text(), known.attributes());
+    }
+
+    private SuggestionCache.Resolution identityOf(WebElement suggestion) {
+        Map<?, ?> r = (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(SUGGESTION_IDENTITY_JS, suggestion);
+        Map<String, String> attrs = new HashMap<>();
+        ((Map<?, ?>) r.get("attrs")).forEach((k, v) -> attrs.put(String.valueOf(k), String.valueOf(v)));
+        return new SuggestionCache.Resolution(String.valueOf(r.get("text")), Map.copyOf(attrs), null);
+    }
+
     private void openCalendarIfClosed() {
         if (!isCalendarOpen()) {
-            wait.until(ExpectedConditions.elementToBeClickable(calendarOpenButton)).click();
-            wait.until(ExpectedConditions.visibilityOf(calendarRoot));
+            WaitPolicy.until(driver, "HomePage.calendarButton", locators.clickable(CALENDAR_OPEN_BUTTON)).click();
+            WaitPolicy.until(driver, "HomePage.calendar", locators.visible(CALENDAR_ROOT));
         }
     }
 
     private boolean isCalendarOpen() {
-        try {
-            return calendarRoot.isDisplayed();
-        } catch (NoSuchElementException | StaleElementReferenceException e) {
-            return false;
-        }
+        return locators.isDisplayed(CALENDAR_ROOT);
     }
 
     private void navigateUntilDayVisible(LocalDate date) {
         final int MAX_MONTHS = 24;
+        if (jumpToDay(date, MAX_MONTHS)) return;
+
+        // fallback: hop month by month, waiting on the re-render instead of a fixed sleep
         int hops = 0;
-        if (isDayVisible(date)) return;
         while (!isDayVisible(date)) {
             if (hops++ >= MAX_MONTHS) {
                 throw new TimeoutException("Target date not found within " + MAX_MONTHS + " months: " + date);
             }
-            wait.until(ExpectedConditions.elementToBeClickable(nextMonthButton)).click();
-            sleepQuiet(150);
+            WaitPolicy.until(driver, "HomePage.nextMonth", locators.clickable(NEXT_MONTH_BUTTON)).click();
+            DomWaits.awaitMutation(driver, 500);
         }
     }
 
-    private boolean isDayVisible(LocalDate date) {
+    /** One-round-trip month jump; false means the hop loop should take over. */
+    private boolean jumpToDay(LocalDate date, int maxHops) {
         try {
-            return driver.findElements(dayButton(date)).stream().anyMatch(WebElement::isDisplayed);
-        } catch (StaleElementReferenceException ignored) {
+            Object hops = ((JavascriptExecutor) driver).executeAsyncScript(JUMP_TO_DAY_JS,
+                    date.format(DateTimeFormatter.ISO_LOCAL_DATE), NEXT_MONTH_CSS, maxHops, DAY_TESTID_PREFIX);
+            return hops instanceof Number n && n.intValue() >= 0;
+        } catch (WebDriverException e) {
             return false;
         }
     }
 
-    private void clickDay(LocalDate date) {
-        By locator = dayButton(date);
+    /** Single script call instead of findElements + isDisplayed per match. */
+    private boolean isDayVisible(LocalDate date) {
         try {
-            wait.until(ExpectedConditions.elementToBeClickable(locator)).click();
-        } catch (StaleElementReferenceException e) {
-            sleepQuiet(150);
-            wait.until(ExpectedConditions.elementToBeClickable(locator)).click();
+            Object r = ((JavascriptExecutor) driver).executeScript(
+                    "var el = document.querySelector(arguments[0]); return !!el && el.getClientRects().length > 0;",
+                    "button[data-testid='" + DAY_TESTID_PREFIX + date.format(DateTimeFormatter.ISO_LOCAL_DATE) + "']");
+            return Boolean.TRUE.equals(r);
+        } catch (WebDriverException ignored) {
+            return false;
         }
     }
 
-    private void sleepQuiet(long ms) {
-        try { Thread.sleep(ms); } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
-        }
+    private void clickDay(LocalDate date) {
+        By locator = dayButton(date);
+        WaitPolicy.retry("HomePage.day", () -> {
+            try {
+                WaitPolicy.until(driver, "HomePage.day", locators.clickable(locator)).click();
+            } catch (StaleElementReferenceException e) {
+                locators.invalidate(); // calendar re-rendered
+                throw e;
+            }
+        });
     }
 }
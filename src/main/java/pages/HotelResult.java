@@ -0,0 +1,28 @@
+package pages;
+
+import utils.PriceParser;
+
+/**
+ * One scraped result card, parsed once at extraction time.
+ * - position:   1-based rank in the result list, counted across pages
+ * - priceMinor: price in minor units (paise / cents); PriceParser.NO_PRICE when missing
+ * - currency:   ISO 4217 code, null when the price text carried none
+ * - rating:     guest rating; NaN when missing
+ **/
+public record HotelResult(int position, String name, long priceMinor, String currency, float rating) {
+
+    /** Parses raw card texts (price / rating as shown on the page). */
+    public static HotelResult parse(int position, String name, CharSequence priceText, CharSequence ratingText) {
+        return new HotelResult(position, name,
+                PriceParser.parsePriceMinor(priceText), PriceParser.currencyOf(priceText),
+                PriceParser.parseRating(ratingText));
+    }
+
+    public boolean hasPrice() {
+        return priceMinor >= 0;
+    }
+
+    public boolean hasRating() {
+        return !Float.isNaN(rating);
+    }
+}
@@ -1,70 +1,180 @@
 package pages;
 
 import org.openqa.selenium.*;
-import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.*;
+import org.openqa.selenium.support.ui.ExpectedConditions;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import utils.ExcelWriters;
+import utils.LocatorCache;
+import utils.PageUrls;
+import utils.ResultSink;
+import utils.StepMetrics;
+import utils.WaitPolicy;
 
 public class SearchResultsPage {
     private final WebDriver driver;
-    private final WebDriverWait wait;
+    private final LocatorCache locators;
 
     public SearchResultsPage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(30));
-        PageFactory.initElements(driver, this);
+        this.locators = new LocatorCache(driver);
     }
 
     // --- Sort UI ---
-    @FindBy(css = "button[name='sorting_selector']")
-    private WebElement sortDropdown;
+    private static final By SORT_DROPDOWN = By.cssSelector("button[name='sorting_selector']");
 
-    @FindBy(xpath = "//label[.//text()='Top guest ratings']")
-    private WebElement topGuestRatingsOption;
-
-    @FindBy(xpath = "//button[normalize-space()='Apply' or contains(@data-testid,'apply')]")
-    private WebElement applyButton;
+    // text matches have no CSS equivalent
+    private static final By APPLY_BUTTON = By.xpath("//button[normalize-space()='Apply' or contains(@data-testid,'apply')]");
 
     // --- Result cards ---
-    private final By cardSelector = By.cssSelector("li[data-testid='accommodation-list-element']");
-    private final By hotelNameInCard = By.cssSelector("span[itemprop='name']");
-    private final By pricePrimaryInCard = By.cssSelector("div[itemprop='price']");
-    private final By priceAltInCard = By.cssSelector("span[data-testid='recommended-price']");
-    private final By ratingsCard = By.cssSelector("span[itemprop='ratingValue']");
+    private static final String CARD_CSS = "li[data-testid='accommodation-list-element']";
+    private static final String NAME_CSS = "span[itemprop='name']";
+    private static final String PRICE_PRIMARY_CSS = "div[itemprop='price']";
+    private static final String PRICE_ALT_CSS = "span[data-testid='recommended-price']";
+    private static final String RATING_CSS = "span[itemprop='ratingValue']";
+
+    private final By cardSelector = By.cssSelector(CARD_CSS);
+    private final By hotelNameInCard = By.cssSelector(NAME_CSS);
+    private final By pricePrimaryInCard = By.cssSelector(PRICE_PRIMARY_CSS);
+    private final By priceAltInCard = By.cssSelector(PRICE_ALT_CSS);
+    private final By ratingsCard = By.cssSelector(RATING_CSS);
     private final By nextPageButton = By.cssSelector("button[data-testid='next-result-page']");
     private final By topGuestRatings = By.xpath("//label[.//text()='Top guest ratings']");
 
+    /** Reads name / primary price / alt price / rating of every card; null where a field is missing. */
+    private static final String EXTRACT_CARDS_JS =
+            "var q = function (card, css) {" +
+            "  var el = card.querySelector(css);" +
+            "  return el ? (el.innerText || el.textContent || '') : null;" +
+            "};" +
+            "var a = arguments, out = [];" +
+            "document.querySelectorAll(a[0]).forEach(function (card) {" +
+            "  out.push([q(card, a[1]), q(card, a[2]), q(card, a[3]), q(card, a[4])]);" +
+            "});" +
+            "return out;";
+
+    /** batch (default) = one executeScript per page; element = per-card WebDriver lookups. */
+    private final boolean batchExtraction = !"element".equalsIgnoreCase(System.getProperty("extract.mode", "batch"));
+
+    /** pipelined (default, needs batch extraction) = hand pages to a background writer and click next at once; serial = one page at a time. */
+    private final boolean pipelined = !"serial".equalsIgnoreCase(System.getProperty("pagination.mode", "pipelined"));
+
+    /** tabs (needs batch extraction) = load pages 2..N in their own tabs at once, then extract each; pipelined until the page URL is known. */
+    private final boolean tabs = "tabs".equalsIgnoreCase(System.getProperty("pagination.mode", "pipelined"));
+
+    /** Page number in the results URL, learned by the first pipelined row in tabs mode (null = not yet / not in the URL). */
+    private static volatile PageUrls pageUrls;
+    private static volatile boolean pageUrlsUnknown;
+
+    /** Cleans and queues snapshotted pages; one thread keeps pages in order. */
+    private static final ExecutorService PAGE_WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "page-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
     public void openSortDropdownOnly() {
-        wait.until(ExpectedConditions.elementToBeClickable(sortDropdown)).click();
-        wait.until(ExpectedConditions.visibilityOfElementLocated(topGuestRatings));
+        WaitPolicy.retry("SearchResultsPage.sortDropdown",
+                () -> WaitPolicy.until(driver, "SearchResultsPage.sortDropdown", locators.clickable(SORT_DROPDOWN)).click());
+        WaitPolicy.until(driver, "SearchResultsPage.sortOptions", locators.visible(topGuestRatings));
     }
 
     public void selectTopGuestRatingsOnly() {
-        wait.until(ExpectedConditions.elementToBeClickable(topGuestRatings)).click();
-        try {
-            wait.until(ExpectedConditions.elementToBeClickable(applyButton)).click();
-        } catch (Exception ignored) {}
-        waitUntilResultsPresent();
+        StepMetrics.time("SearchResultsPage.selectTopGuestRatingsOnly", () -> {
+            WaitPolicy.retry("SearchResultsPage.topGuestRatings",
+                    () -> WaitPolicy.until(driver, "SearchResultsPage.topGuestRatings", locators.clickable(topGuestRatings)).click());
+            try {
+                // some layouts apply the sort immediately and have no Apply button
+                WaitPolicy.optional(driver, "SearchResultsPage.sortApply", locators.clickable(APPLY_BUTTON))
+                        .ifPresent(WebElement::click);
+            } catch (WebDriverException ignored) {}
+            locators.invalidate(); // results re-render with the new sort
+            waitUntilResultsPresent();
+        });
+    }
+
+    /** Search-by-URL fast path: loads a results URL (see DestinationCache) instead of the search form. */
+    public void open(String resultsUrl) {
+        StepMetrics.time("SearchResultsPage.open", () -> {
+            driver.get(resultsUrl);
+            locators.invalidate();
+            waitUntilResultsPresent();
+        });
     }
 
     public void waitUntilResultsPresent() {
-        wait.until(d -> !d.findElements(cardSelector).isEmpty());
+        WaitPolicy.until(driver, "SearchResultsPage.results", d -> !locators.findAll(cardSelector).isEmpty());
     }
 
-    /** Print to console and write to Excel (A..C) without gaps. */
-    public void printHotelsAndWriteExcel(String excelPath, String sheetName) {
+    /** Print to console and write to Excel (A..C) without gaps; returns the cards written. */
+    public List<HotelResult> printHotelsAndWriteExcel(ResultSink excel, String sheetName) {
+        return printHotelsAndWriteExcel(excel, sheetName, 1);
+    }
+
+    private List<HotelResult> printHotelsAndWriteExcel(ResultSink excel, String sheetName, int firstPosition) {
         waitUntilResultsPresent();
-        try {
-            ExcelWriters.ensureSheetWithHeaders(excelPath, sheetName);
-        } catch (Exception e) {
-            System.err.println("[Excel] ensureSheetWithHeaders failed: " + e.getMessage());
+        excel.ensureSheetWithHeaders(sheetName);
+
+        List<HotelResult> cards = extractCards(firstPosition);
+        for (HotelResult card : cards) {
+//            System.out.println("Hotel Name: " + card.name() + " \n Price: " + card.priceMinor() + " \n Rating: " + card.rating());
+            excel.appendHotelRow(sheetName, card);
+        }
+        return cards;
+    }
+
+    /** All cards on the current page (positions from 1); batch script first, per-element lookups as fallback. */
+    public List<HotelResult> extractCards() {
+        return extractCards(1);
+    }
+
+    private List<HotelResult> extractCards(int firstPosition) {
+        if (batchExtraction) {
+            try {
+                List<HotelResult> cards = toResults(snapshotPage(), firstPosition);
+                if (!cards.isEmpty()) return cards;
+            } catch (WebDriverException | ClassCastException e) {
+                System.err.println("[Extract] batch script failed, falling back: " + e.getMessage());
+            }
+        }
+        return extractCardsPerElement(firstPosition);
+    }
+
+    /** Raw [name, primary price, alt price, rating] per card, as read by EXTRACT_CARDS_JS. */
+    private List<?> snapshotPage() {
+        Object raw = ((JavascriptExecutor) driver).executeScript(EXTRACT_CARDS_JS,
+                CARD_CSS, NAME_CSS, PRICE_PRIMARY_CSS, PRICE_ALT_CSS, RATING_CSS);
+        return (raw instanceof List<?> rows) ? rows : List.of();
+    }
+
+    /** Price / rating parsing of a snapshot; no WebDriver calls, so it can run off the test thread. */
+    private List<HotelResult> toResults(List<?> rows, int firstPosition) {
+        List<HotelResult> cards = new ArrayList<>(rows.size());
+        int position = firstPosition;
+        for (Object r : rows) {
+            List<?> f = (List<?>) r;
+            String name    = (String) f.get(0);
+            String primary = (String) f.get(1);
+            String alt     = (String) f.get(2);
+            String rating  = (String) f.get(3);
+
+            cards.add(HotelResult.parse(position++,
+                    name == null ? "Name not found" : name,
+                    (primary != null) ? primary : alt,
+                    rating));
         }
+        return cards;
+    }
 
+    /** Original per-card path: 3-4 WebDriver round-trips per card. */
+    private List<HotelResult> extractCardsPerElement(int firstPosition) {
+        List<HotelResult> cards = new ArrayList<>();
         int total = driver.findElements(cardSelector).size();
         for (int i = 0; i < total; i++) {
             try {
@@ -72,30 +182,34 @@ public class SearchResultsPage {
                 String name   = safeGetText(card, hotelNameInCard, "Name not found");
                 String price  = safeGetPrice(card);
                 String rating = safeGetRatings(card, ratingsCard, "");
-
-//                System.out.println("Hotel Name: " + name + " \n Price: " + price + " \n Rating: " + rating);
-
-                try {
-                    ExcelWriters.appendHotelRow(excelPath, sheetName, name, price, rating);
-                } catch (Exception x) {
-                    System.err.println("[Excel] appendHotelRow failed: " + x.getMessage());
-                }
+                cards.add(HotelResult.parse(firstPosition + cards.size(), name, price, rating));
             } catch (StaleElementReferenceException ignored) {
                 // retry next card
             } catch (IndexOutOfBoundsException ignored) {
                 break;
             }
         }
+        return cards;
     }
-    /** Writes hotels for the first 'pages' pages (page 1 = current). */
-    public void writeHotelsForFirstNPages(String excelPath, String sheetName, int pages) {
-        if (pages < 1) pages = 1;
+
+    /** Writes hotels for the first 'pages' pages (page 1 = current); returns the cards of each page written. */
+    public List<List<HotelResult>> writeHotelsForFirstNPages(ResultSink excel, String sheetName, int pages) {
+        return StepMetrics.time("SearchResultsPage.writeHotelsForFirstNPages",
+                () -> writePages(excel, sheetName, Math.max(pages, 1)));
+    }
+
+    private List<List<HotelResult>> writePages(ResultSink excel, String sheetName, int pages) {
+        if (tabs && batchExtraction && pages > 1 && pageUrls != null) return writePagesInTabs(excel, sheetName, pages);
+        if (pipelined && batchExtraction) return writePagesPipelined(excel, sheetName, pages);
+        List<List<HotelResult>> written = new ArrayList<>();
+        int position = 1;
 
         for (int p = 1; p <= pages; p++) {
             if (p == 1) {
                 // current page (already loaded and sorted)
                 System.out.println("[Pagination] Writing page " + p);
-                printHotelsAndWriteExcel(excelPath, sheetName);
+                written.add(printHotelsAndWriteExcel(excel, sheetName, position));
+                position += written.get(0).size();
                 continue;
             }
 
@@ -109,35 +223,235 @@ public class SearchResultsPage {
 
             // wait for staleness of previous first (if any), then stabilize results
             if (previousFirst != null) {
-                try { wait.until(ExpectedConditions.stalenessOf(previousFirst)); }
-                catch (TimeoutException ignored) {}
+                WaitPolicy.optional(driver, "SearchResultsPage.pageChange", ExpectedConditions.stalenessOf(previousFirst));
             }
             waitUntilResultsPresent();
 
             System.out.println("[Pagination] Writing page " + p);
-            printHotelsAndWriteExcel(excelPath, sheetName);
+            List<HotelResult> page = printHotelsAndWriteExcel(excel, sheetName, position);
+            position += page.size();
+            written.add(page);
+        }
+        return written;
+    }
+
+    /**
+     * Pipelined pagination: each page is snapshotted in one script call and handed to PAGE_WRITER
+     * (clean + queue to Excel) while the next page is already being requested. The next page counts
+     * as loaded once the previous page's first card element is gone (or the snapshot differs) and the
+     * card count holds for two consecutive reads. All writes are done when this returns; a page that
+     * does not load fails the row instead of ending pagination early.
+     */
+    private List<List<HotelResult>> writePagesPipelined(ResultSink excel, String sheetName, int pages) {
+        waitUntilResultsPresent();
+        excel.ensureSheetWithHeaders(sheetName);
+
+        List<CompletableFuture<List<HotelResult>>> handedOff = new ArrayList<>();
+        List<?> snapshot = WaitPolicy.until(driver, "SearchResultsPage.snapshot", d -> nonEmpty(snapshotPage()));
+        String page1Url = (tabs && pageUrls == null && !pageUrlsUnknown) ? driver.getCurrentUrl() : null;
+        int position = 1;
+        for (int p = 1; ; p++) {
+            System.out.println("[Pagination] Writing page " + p + " (pipelined)");
+            List<?> rows = snapshot;
+            int firstPosition = position;
+            handedOff.add(CompletableFuture.supplyAsync(() -> {
+                List<HotelResult> cards = toResults(rows, firstPosition);
+                for (HotelResult card : cards) excel.appendHotelRow(sheetName, card);
+                return cards;
+            }, PAGE_WRITER));
+            position += rows.size();
+            if (p == pages) break;
+
+            WebElement previousFirst = firstCardOrNull();
+            if (!clickNextIfEnabled()) {
+                System.out.println("[Pagination] Next button not available. Stopping at page " + p);
+                break;
+            }
+            try {
+                snapshot = awaitNextPage(rows, previousFirst);
+            } catch (TimeoutException e) {
+                for (CompletableFuture<List<HotelResult>> f : handedOff) f.join(); // no writes left behind
+                throw new TimeoutException("[Pagination] Page " + (p + 1) + " did not load after page " + p, e);
+            }
+            if (p == 1 && page1Url != null) learnPageUrls(page1Url, driver.getCurrentUrl());
+        }
+
+        List<List<HotelResult>> written = new ArrayList<>();
+        for (CompletableFuture<List<HotelResult>> f : handedOff) written.add(f.join());
+        return written;
+    }
+
+    /**
+     * Tab fan-out: page 1 is read, pages 2..N are opened in new tabs of this session (loading in
+     * parallel), then each tab is read and closed in order. Rows go to the sink once every page is read.
+     * A page 2 with exactly the cards of page 1 means the page URL did not work: the tabs are dropped,
+     * the URL pattern is forgotten and this row paginates pipelined. A tab that does not load sends
+     * this row pipelined too, so a slow tab never cuts the results short.
+     * Only pages of the current search are fanned out; each city stays its own RunSet row.
+     */
+    private List<List<HotelResult>> writePagesInTabs(ResultSink excel, String sheetName, int pages) {
+        waitUntilResultsPresent();
+        excel.ensureSheetWithHeaders(sheetName);
+
+        String page1Url = driver.getCurrentUrl();
+        List<String> urls = new ArrayList<>();
+        for (int p = 2; p <= pages; p++) urls.add(pageUrls.forPage(page1Url, p));
+
+        List<List<?>> snapshots = new ArrayList<>();
+        snapshots.add(WaitPolicy.until(driver, "SearchResultsPage.snapshot", d -> nonEmpty(snapshotPage())));
+        String origin = driver.getWindowHandle();
+        List<String> handles = openTabs(urls, origin);
+        boolean tabTimedOut = false;
+        try {
+            snapshots.addAll(readTabs(handles));
+        } catch (TimeoutException e) {
+            System.out.println("[Pagination] " + e.getMessage() + "; back to pipelined");
+            tabTimedOut = true;
+        } finally {
+            closeTabs(handles, origin);
+        }
+        // tabs closed and focus back on page 1 before any fallback paginates
+        if (tabTimedOut) return writePagesPipelined(excel, sheetName, pages);
+        if (snapshots.size() > 1 && snapshots.get(1).equals(snapshots.get(0))) {
+            System.out.println("[Pagination] Page URLs (" + pageUrls + ") show page 1 again; back to pipelined");
+            pageUrls = null;
+            pageUrlsUnknown = true;
+            return writePagesPipelined(excel, sheetName, pages);
+        }
+
+        List<List<HotelResult>> written = new ArrayList<>();
+        int position = 1;
+        for (List<?> rows : snapshots) {
+            System.out.println("[Pagination] Writing page " + (written.size() + 1) + " (tabs)");
+            List<HotelResult> cards = toResults(rows, position);
+            for (HotelResult card : cards) excel.appendHotelRow(sheetName, card);
+            position += cards.size();
+            written.add(cards);
+        }
+        return written;
+    }
+
+    /**
+     * window.open per URL, so all of them load at once; returns the new handles in URL order.
+     * Focus is back on origin when this returns.
+     */
+    private List<String> openTabs(List<String> urls, String origin) {
+        List<String> handles = new ArrayList<>();
+        Set<String> known = new HashSet<>(driver.getWindowHandles());
+        for (String url : urls) {
+            ((JavascriptExecutor) driver).executeScript("window.open(arguments[0], '_blank');", url);
+            Set<String> now = driver.getWindowHandles();
+            String added = now.stream().filter(h -> !known.contains(h)).findFirst().orElse(null);
+            if (added == null) {
+                // popup blocked: a plain new tab, loaded synchronously
+                added = driver.switchTo().newWindow(WindowType.TAB).getWindowHandle();
+                driver.get(url);
+            }
+            known.add(added);
+            handles.add(added);
+        }
+        driver.switchTo().window(origin);
+        return handles;
+    }
+
+    /** Cards of each tab in order; a tab that does not load is a TimeoutException, never a short result. */
+    private List<List<?>> readTabs(List<String> handles) {
+        List<List<?>> snapshots = new ArrayList<>();
+        for (String handle : handles) {
+            driver.switchTo().window(handle);
+            try {
+                snapshots.add(awaitPage("SearchResultsPage.tabLoad", null, null));
+            } catch (TimeoutException e) {
+                throw new TimeoutException("Tab for page " + (snapshots.size() + 2) + " did not load", e);
+            }
+        }
+        return snapshots;
+    }
+
+    private void closeTabs(List<String> handles, String origin) {
+        for (String handle : handles) {
+            try {
+                driver.switchTo().window(handle);
+                driver.close();
+            } catch (WebDriverException ignored) {
+                // already gone
+            }
+        }
+        driver.switchTo().window(origin);
+    }
+
+    private static void learnPageUrls(String page1Url, String page2Url) {
+        PageUrls learned = PageUrls.learn(page1Url, page2Url).orElse(null);
+        if (learned != null) {
+            pageUrls = learned;
+            System.out.println("[Pagination] Page number is the " + learned + "; further rows load pages in tabs");
+        } else {
+            pageUrlsUnknown = true;
+            System.out.println("[Pagination] Page number is not in the results URL; staying pipelined");
+        }
+    }
+
+    /** Snapshot of the page that replaced previousRows (whose first card element was previousFirst). */
+    private List<?> awaitNextPage(List<?> previousRows, WebElement previousFirst) {
+        return awaitPage("SearchResultsPage.nextPageLoad", previousRows, previousFirst);
+    }
+
+    /**
+     * Snapshot once the cards are there, the page is not previousRows any more and the count holds for
+     * two reads. Identical rows still count as a new page once previousFirst has gone stale, so a
+     * listing pinned to the top of every page does not block the wait.
+     */
+    private List<?> awaitPage(String waitKey, List<?> previousRows, WebElement previousFirst) {
+        int[] lastCount = {-1};
+        return WaitPolicy.until(driver, waitKey, d -> {
+            List<?> rows = snapshotPage();
+            boolean replaced = previousRows == null || !rows.equals(previousRows) || isStale(previousFirst);
+            if (rows.isEmpty() || !replaced) {
+                lastCount[0] = -1;
+                return null;
+            }
+            boolean stable = rows.size() == lastCount[0];
+            lastCount[0] = rows.size();
+            return stable ? rows : null;
+        });
+    }
+
+    private static List<?> nonEmpty(List<?> rows) {
+        return rows.isEmpty() ? null : rows;
+    }
+
+    private static boolean isStale(WebElement el) {
+        if (el == null) return false;
+        try {
+            el.isEnabled();
+            return false;
+        } catch (StaleElementReferenceException e) {
+            return true;
         }
     }
 
     /** Returns first card element if present, else null. */
     private WebElement firstCardOrNull() {
-        List<WebElement> cards = driver.findElements(cardSelector);
+        List<WebElement> cards = locators.findAll(cardSelector);
         return cards.isEmpty() ? null : cards.get(0);
     }
 
     /** Clicks next if it is present and enabled; returns true if a click was performed. */
     private boolean clickNextIfEnabled() {
-        WebElement btn;
         try {
-            btn = wait.until(ExpectedConditions.presenceOfElementLocated(nextPageButton));
-        } catch (TimeoutException e) {
+            // absent on single-page results: optional, so the last page is detected fast
+            if (WaitPolicy.optional(driver, "SearchResultsPage.nextButton", d -> locators.find(nextPageButton)).isEmpty()) {
+                return false;
+            }
+            if (!locators.with(nextPageButton, this::isEnabled)) return false;
+        } catch (TimeoutException | NoSuchElementException | StaleElementReferenceException e) {
             return false;
         }
-        if (!isEnabled(btn)) return false;
 
+        WebElement btn = locators.find(nextPageButton);
         scrollIntoView(btn);
         try {
-            wait.until(ExpectedConditions.elementToBeClickable(btn)).click();
+            WaitPolicy.until(driver, "SearchResultsPage.nextClick", locators.clickable(nextPageButton)).click();
             return true;
         } catch (Exception e) {
             // try JS click as fallback
@@ -147,6 +461,8 @@ public class SearchResultsPage {
             } catch (Exception ignored) {
                 return false;
             }
+        } finally {
+            locators.invalidate(); // next page replaces the list and possibly the pager
         }
     }
 
@@ -170,14 +486,15 @@ public class SearchResultsPage {
     }
 
     // --- helpers ---
+    /** Raw price text (primary, else alternative), or null. */
     private String safeGetPrice(WebElement card) {
         try {
-            return extractCleanPrice(card.findElement(pricePrimaryInCard).getText());
+            return card.findElement(pricePrimaryInCard).getText();
         } catch (NoSuchElementException | StaleElementReferenceException e1) {
             try {
-                return extractCleanPrice(card.findElement(priceAltInCard).getText());
+                return card.findElement(priceAltInCard).getText();
             } catch (NoSuchElementException | StaleElementReferenceException e2) {
-                return "Price not found";
+                return null;
             }
         }
     }
@@ -199,13 +516,6 @@ public class SearchResultsPage {
         }
     }
 
-    private String extractCleanPrice(String rawText) {
-        if (rawText == null) return "Price not found";
-        int index = rawText.indexOf("₹");
-        if (index != -1) return rawText.substring(index).trim();
-        return rawText.trim().isEmpty() ? "Price not found" : rawText.trim();
-    }
-
     public int getResultCount() {
         return driver.findElements(cardSelector).size();
     }
@@ -0,0 +1,88 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base for append-only sinks: turns the sheet-oriented ResultSink calls into ResultRows.
+ * - clearDataKeepHeader() starts a new block for the city instead of rewriting anything
+ * - Block ids are unique across runs (run start time + sequence), so repeated runs can
+ *   append to the same file
+ **/
+abstract class AppendResultSink implements ResultSink {
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, String> blocks = new HashMap<>();
+    private final Map<String, LocalDate[]> dates = new HashMap<>();
+    private int seq;
+    private boolean closed;
+
+    /** Buffer one row; called under the sink's lock. */
+    protected abstract void write(ResultRow row) throws IOException;
+
+    /** Push buffered rows to the file. */
+    protected abstract void flushBuffer() throws IOException;
+
+    protected abstract void closeFile() throws IOException;
+
+    @Override
+    public synchronized void ensureSheetWithHeaders(String sheetName) {
+        blocks.computeIfAbsent(sheetName, k -> nextBlock());
+    }
+
+    @Override
+    public synchronized void clearDataKeepHeader(String sheetName) {
+        blocks.put(sheetName, nextBlock());
+        dates.remove(sheetName);
+    }
+
+    @Override
+    public synchronized void writeCheckInOutSideBlock(String sheetName, LocalDate checkIn, LocalDate checkOut) {
+        ensureSheetWithHeaders(sheetName);
+        dates.put(sheetName, new LocalDate[]{checkIn, checkOut});
+    }
+
+    @Override
+    public synchronized void appendHotelRow(String sheetName, HotelResult result) {
+        if (closed) throw new IllegalStateException("Result sink already closed");
+        ensureSheetWithHeaders(sheetName);
+        LocalDate[] d = dates.get(sheetName);
+        try {
+            write(new ResultRow(blocks.get(sheetName), sheetName,
+                    d == null ? null : d[0], d == null ? null : d[1], result));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void sync() {
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            flushBuffer();
+            closeFile();
+        } catch (IOException e) {
+            System.err.println("[Results] close failed: " + e.getMessage());
+        }
+    }
+
+    private String nextBlock() {
+        return runId + "." + (++seq);
+    }
+}
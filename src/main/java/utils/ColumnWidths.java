@@ -0,0 +1,103 @@
+
+package utils;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.Arrays;
+
+/**
+ * Column-width tracker used instead of Sheet.autoSizeColumn().
+ * - observe() keeps the widest text per column as cells are written (O(text length), no AWT)
+ * - Widths come from a glyph-class approximation of the default font (Calibri 11),
+ *   in units of one '0' digit, the same unit Excel column widths use
+ * - apply() sets the tracked columns once, e.g. right before the workbook is written
+ **/
+public final class ColumnWidths {
+
+    /** Excel's hard limit is 255 characters. */
+    private static final int MAX_WIDTH = 255 * 256;
+    /** Extra room autoSizeColumn leaves next to the text, in digit widths. */
+    private static final double PADDING = 0.85;
+    private static final double BOLD_FACTOR = 1.07;
+
+    private double[] max = new double[8];
+
+    /** Starts from the widths already set on the sheet (only ever widens them). */
+    public static ColumnWidths seededFrom(Sheet sheet, int... columns) {
+        ColumnWidths w = new ColumnWidths();
+        int defaultWidth = sheet.getDefaultColumnWidth() * 256;
+        for (int c : columns) {
+            int current = sheet.getColumnWidth(c);
+            if (current != defaultWidth) w.widen(c, current / 256.0 - PADDING);
+        }
+        return w;
+    }
+
+    public void observe(int column, CharSequence text) {
+        observe(column, text, false);
+    }
+
+    public void observe(int column, CharSequence text, boolean bold) {
+        if (text == null) return;
+        double units = 0;
+        for (int i = 0, n = text.length(); i < n; i++) units += glyphWidth(text.charAt(i));
+        widen(column, bold ? units * BOLD_FACTOR : units);
+    }
+
+    /**
+     * Width of a formatted number without building its text: optional prefix characters
+     * (currency symbol), integer digits with thousands separators, then decimals.
+     */
+    public void observeNumber(int column, long wholePart, int decimals, int prefixChars) {
+        long v = Math.abs(wholePart);
+        int digits = 1;
+        while (v >= 10) {
+            v /= 10;
+            digits++;
+        }
+        double units = prefixChars + digits + ((digits - 1) / 3) * glyphWidth(',');
+        if (wholePart < 0) units += glyphWidth('-');
+        if (decimals > 0) units += glyphWidth('.') + decimals;
+        widen(column, units);
+    }
+
+    /** Sets every tracked column on the sheet. */
+    public void apply(Sheet sheet) {
+        for (int c = 0; c < max.length; c++) {
+            if (max[c] <= 0) continue;
+            sheet.setColumnWidth(c, (int) Math.min(MAX_WIDTH, Math.round((max[c] + PADDING) * 256)));
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(max, 0);
+    }
+
+    // --------- helpers ---------
+
+    private void widen(int column, double units) {
+        if (column >= max.length) max = Arrays.copyOf(max, Math.max(column + 1, max.length * 2));
+        if (units > max[column]) max[column] = units;
+    }
+
+    /** Approximate advance width of one character, relative to a digit. */
+    private static double glyphWidth(char c) {
+        if (c >= '0' && c <= '9') return 1.0;
+        switch (c) {
+            case 'i': case 'j': case 'l': case 'I': case '\'': case '.': case ',':
+            case ':': case ';': case '|': case '!': case ' ':
+                return 0.47;
+            case 'f': case 'r': case 't': case 'J': case '(': case ')': case '[': case ']':
+            case '-': case '"':
+                return 0.65;
+            case 's': case 'z': case 'c': case 'x':
+                return 0.82;
+            case 'm': case 'w': case 'M': case 'W': case '@': case '%': case '&':
+                return 1.5;
+            default:
+                if (c >= 'A' && c <= 'Z') return 1.12;
+                if (c >= 0x2E80) return 1.9; // CJK / full-width
+                return 0.97;
+        }
+    }
+}
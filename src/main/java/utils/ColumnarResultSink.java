@@ -0,0 +1,181 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Compact columnar binary sink (.hrc): rows are buffered and written as column chunks.
+ * - File: "HRC1" magic, then chunks of [int byteLength][int rowCount][columns]
+ * - Columns, in order: block, city (dictionary + varint ids), check-in, check-out (epoch day,
+ *   zigzag varint), position (varint), name (UTF), priceMinor (zigzag varint, -1 = none),
+ *   currency (dictionary, id 0 = none), rating (float, NaN = none)
+ * - read() streams the rows back (used by ResultConverter)
+ *
+ * System properties:
+ *   results.chunkRows (default 4096) rows per chunk
+ **/
+public class ColumnarResultSink extends AppendResultSink {
+
+    static final int MAGIC = 0x48524331; // "HRC1"
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final FileChannel channel;
+    private final int chunkRows = Integer.getInteger("results.chunkRows", 4096);
+    private final List<ResultRow> pending = new ArrayList<>();
+
+    public ColumnarResultSink(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (fresh) channel.write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+    }
+
+    @Override
+    protected void write(ResultRow row) throws IOException {
+        pending.add(row);
+        if (pending.size() >= chunkRows) flushBuffer();
+    }
+
+    @Override
+    protected void flushBuffer() throws IOException {
+        if (pending.isEmpty()) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(pending.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, patched below
+        out.writeInt(pending.size());
+
+        writeDictionary(out, pending, ResultRow::block, false);
+        writeDictionary(out, pending, ResultRow::city, false);
+        for (ResultRow r : pending) writeVarLong(out, zigzag(epochDay(r.checkIn())));
+        for (ResultRow r : pending) writeVarLong(out, zigzag(epochDay(r.checkOut())));
+        for (ResultRow r : pending) writeVarLong(out, r.result().position());
+        for (ResultRow r : pending) out.writeUTF(r.result().name() == null ? "" : r.result().name());
+        for (ResultRow r : pending) writeVarLong(out, zigzag(r.result().priceMinor()));
+        writeDictionary(out, pending, r -> r.result().currency(), true);
+        for (ResultRow r : pending) out.writeFloat(r.result().rating());
+        out.flush();
+
+        ByteBuffer chunk = ByteBuffer.wrap(bytes.toByteArray());
+        chunk.putInt(0, chunk.capacity() - 4);
+        while (chunk.hasRemaining()) channel.write(chunk);
+        pending.clear();
+    }
+
+    @Override
+    protected void closeFile() throws IOException {
+        channel.close();
+    }
+
+    /** Streams every row of a .hrc file in write order. */
+    public static void read(Path file, Consumer<ResultRow> rows) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a columnar result file: " + file);
+            while (true) {
+                try {
+                    in.readInt(); // chunk length (lets other readers skip chunks)
+                } catch (EOFException end) {
+                    return;
+                }
+                int n = in.readInt();
+                String[] block = readDictionary(in, n, false);
+                String[] city = readDictionary(in, n, false);
+                long[] checkIn = new long[n], checkOut = new long[n], price = new long[n];
+                int[] position = new int[n];
+                String[] name = new String[n];
+                for (int i = 0; i < n; i++) checkIn[i] = unzigzag(readVarLong(in));
+                for (int i = 0; i < n; i++) checkOut[i] = unzigzag(readVarLong(in));
+                for (int i = 0; i < n; i++) position[i] = (int) readVarLong(in);
+                for (int i = 0; i < n; i++) name[i] = in.readUTF();
+                for (int i = 0; i < n; i++) price[i] = unzigzag(readVarLong(in));
+                String[] currency = readDictionary(in, n, true);
+                for (int i = 0; i < n; i++) {
+                    rows.accept(new ResultRow(block[i], city[i], date(checkIn[i]), date(checkOut[i]),
+                            new HotelResult(position[i], name[i], price[i], currency[i], in.readFloat())));
+                }
+            }
+        }
+    }
+
+    // --------- encoding helpers ---------
+
+    private static void writeDictionary(DataOutputStream out, List<ResultRow> rows,
+                                        Function<ResultRow, String> column, boolean nullable) throws IOException {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        int base = nullable ? 1 : 0;
+        for (ResultRow r : rows) {
+            String v = column.apply(r);
+            if (v != null || !nullable) ids.putIfAbsent(v == null ? "" : v, ids.size() + base);
+        }
+        writeVarLong(out, ids.size());
+        for (String v : ids.keySet()) out.writeUTF(v);
+        for (ResultRow r : rows) {
+            String v = column.apply(r);
+            writeVarLong(out, (v == null && nullable) ? 0 : ids.get(v == null ? "" : v));
+        }
+    }
+
+    private static String[] readDictionary(DataInputStream in, int n, boolean nullable) throws IOException {
+        int size = (int) readVarLong(in);
+        int base = nullable ? 1 : 0;
+        String[] dict = new String[size + base];
+        for (int i = 0; i < size; i++) dict[i + base] = in.readUTF();
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) values[i] = dict[(int) readVarLong(in)];
+        return values;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long epochDay(LocalDate d) {
+        return d == null ? NO_DATE : d.toEpochDay();
+    }
+
+    private static LocalDate date(long epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,210 @@
+
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records every WebDriver command (driver, element, navigation, alert ... calls):
+ * name, duration and the project method that issued it (first pages/utils/tests/base frame).
+ * Attach with new EventFiringDecorator<>(new CommandRecorder()).decorate(driver).
+ *
+ * - current(): commands issued by this thread so far (used by StepMetrics)
+ * - beginTest()/endTest(): per-test totals printed after each test method
+ * - report(): top N chattiest call sites -> target/metrics/webdriver-commands.json
+ *
+ * System properties:
+ *   metrics.topN (default 15) call sites listed in the suite report
+ **/
+public class CommandRecorder implements WebDriverListener {
+
+    /** Local accessors / Object methods that never reach the browser. */
+    private static final Set<String> LOCAL_ONLY = Set.of(
+            "manage", "navigate", "switchTo", "timeouts", "window",
+            "getWrappedDriver", "getWrappedElement", "toString", "hashCode", "equals");
+
+    /** Call sites are page-object / test / session code; utils (waits, locator cache, metrics) is plumbing. */
+    private static final Set<String> CALL_SITE_PACKAGES = Set.of("pages", "tests", "base");
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private static final class Stat {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        void add(long n) {
+            count.increment();
+            nanos.add(n);
+        }
+    }
+
+    private static final class ThreadState {
+        long commands;
+        final Deque<Long> starts = new ArrayDeque<>();
+        final Map<String, long[]> perTest = new TreeMap<>(); // command -> {count, nanos}
+    }
+
+    private static final ThreadLocal<ThreadState> STATE = ThreadLocal.withInitial(ThreadState::new);
+    private static final Map<String, Stat> BY_CALL_SITE = new ConcurrentHashMap<>();
+    private static final Map<String, Stat> BY_COMMAND = new ConcurrentHashMap<>();
+
+    /** Commands issued so far by the current thread. */
+    public static long current() {
+        return STATE.get().commands;
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (LOCAL_ONLY.contains(method.getName())) return;
+        ThreadState s = STATE.get();
+        s.commands++;
+        s.starts.push(System.nanoTime());
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(target, method);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(target, method);
+    }
+
+    private void finish(Object target, Method method) {
+        if (LOCAL_ONLY.contains(method.getName())) return;
+        ThreadState s = STATE.get();
+        Long start = s.starts.poll();
+        if (start == null) return;
+        long nanos = System.nanoTime() - start;
+
+        String command = kind(target, method) + "." + method.getName();
+        BY_COMMAND.computeIfAbsent(command, k -> new Stat()).add(nanos);
+        BY_CALL_SITE.computeIfAbsent(callSite() + " -> " + command, k -> new Stat()).add(nanos);
+
+        long[] t = s.perTest.computeIfAbsent(command, k -> new long[2]);
+        t[0]++;
+        t[1] += nanos;
+    }
+
+    // --------- per test ---------
+
+    public static void beginTest() {
+        STATE.get().perTest.clear();
+    }
+
+    /** Prints this thread's totals since beginTest(). */
+    public static void endTest(String testName) {
+        Map<String, long[]> perTest = STATE.get().perTest;
+        if (perTest.isEmpty()) return;
+
+        long count = 0, nanos = 0;
+        for (long[] t : perTest.values()) {
+            count += t[0];
+            nanos += t[1];
+        }
+        StringBuilder top = new StringBuilder();
+        perTest.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .limit(5)
+                .forEach(e -> top.append(' ').append(e.getKey()).append('=').append(e.getValue()[0]));
+        System.out.printf("[WebDriver] %s: %d commands, %d ms;%s%n", testName, count, nanos / 1_000_000, top);
+        perTest.clear();
+    }
+
+    // --------- suite report ---------
+
+    /** Console top N + JSON export (suite end). No-op when nothing was recorded. */
+    public static void report() {
+        if (BY_COMMAND.isEmpty()) return;
+        int topN = Integer.getInteger("metrics.topN", 15);
+
+        List<Map.Entry<String, Stat>> sites = new ArrayList<>(BY_CALL_SITE.entrySet());
+        sites.sort((a, b) -> Long.compare(b.getValue().count.sum(), a.getValue().count.sum()));
+
+        System.out.println("============ CHATTIEST WEBDRIVER CALL SITES ============");
+        System.out.printf("%8s %10s  %s%n", "calls", "total ms", "call site -> command");
+        for (Map.Entry<String, Stat> e : sites.subList(0, Math.min(topN, sites.size()))) {
+            System.out.printf("%8d %10d  %s%n", e.getValue().count.sum(), e.getValue().nanos.sum() / 1_000_000, e.getKey());
+        }
+        System.out.println("========================================================\n");
+
+        Path out = Paths.get(System.getProperty("user.dir"), "target", "metrics", "webdriver-commands.json");
+        try {
+            Files.createDirectories(out.getParent());
+            Files.writeString(out, toJson(sites, topN), StandardCharsets.UTF_8);
+            System.out.println("[Metrics] " + out.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("[Metrics] export failed: " + e.getMessage());
+        }
+    }
+
+    private static String toJson(List<Map.Entry<String, Stat>> sites, int topN) {
+        StringBuilder sb = new StringBuilder("{\n  \"byCommand\": {");
+        String sep = "\n";
+        for (Map.Entry<String, Stat> e : new TreeMap<>(BY_COMMAND).entrySet()) {
+            sb.append(sep);
+            appendStat(sb, e.getKey(), e.getValue());
+            sep = ",\n";
+        }
+        sb.append("\n  },\n  \"topCallSites\": {");
+        sep = "\n";
+        for (Map.Entry<String, Stat> e : sites.subList(0, Math.min(topN, sites.size()))) {
+            sb.append(sep);
+            appendStat(sb, e.getKey(), e.getValue());
+            sep = ",\n";
+        }
+        return sb.append("\n  }\n}\n").toString();
+    }
+
+    private static void appendStat(StringBuilder sb, String key, Stat s) {
+        long n = s.count.sum();
+        long ms = s.nanos.sum() / 1_000_000;
+        sb.append("    \"").append(key.replace("\\", "\\\\").replace("\"", "\\\"")).append("\": {")
+                .append("\"calls\": ").append(n)
+                .append(", \"totalMs\": ").append(ms)
+                .append(", \"avgMs\": ").append(n == 0 ? 0 : ms / (double) n)
+                .append('}');
+    }
+
+    // --------- helpers ---------
+
+    private static String kind(Object target, Method method) {
+        if (target instanceof WebElement) return "element";
+        if (target instanceof WebDriver) return "driver";
+        return method.getDeclaringClass().getSimpleName();
+    }
+
+    /** First frame in pages / tests / base, e.g. SearchResultsPage.isEnabled:201 (waits in utils are skipped). */
+    private static String callSite() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> {
+                    String cls = f.getClassName();
+                    int dot = cls.indexOf('.');
+                    return dot > 0 && CALL_SITE_PACKAGES.contains(cls.substring(0, dot));
+                })
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().indexOf('.') + 1)
+                        + "." + enclosingMethod(f.getMethodName()) + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    /** "lambda$enterDestination$3" -> "enterDestination" (wait conditions are mostly lambdas). */
+    private static String enclosingMethod(String name) {
+        if (!name.startsWith("lambda$")) return name;
+        int end = name.indexOf('$', 7);
+        return end > 7 ? name.substring(7, end) : name;
+    }
+}
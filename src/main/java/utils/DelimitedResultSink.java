@@ -0,0 +1,153 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming text sink: CSV or JSON lines, appended through a buffered FileChannel.
+ * - CSV columns: block, city, check_in, check_out, position, name, price, currency, rating
+ *   (price in major units with 2 decimals; missing values are empty)
+ * - JSONL keys: same fields, price as integer priceMinor; missing values are null
+ **/
+public class DelimitedResultSink extends AppendResultSink {
+
+    public enum Format { CSV, JSONL }
+
+    static final String CSV_HEADER = "block,city,check_in,check_out,position,name,price,currency,rating\n";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Format format;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final StringBuilder line = new StringBuilder(256);
+
+    public DelimitedResultSink(Path file, Format format) throws IOException {
+        this.format = format;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (fresh && format == Format.CSV) put(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void write(ResultRow row) throws IOException {
+        line.setLength(0);
+        if (format == Format.CSV) csv(row); else json(row);
+        line.append('\n');
+        put(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    protected void closeFile() throws IOException {
+        channel.close();
+    }
+
+    // --------- encoding ---------
+
+    private void put(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) flushBuffer();
+        if (bytes.length > buffer.capacity()) {
+            channel.write(ByteBuffer.wrap(bytes));
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    private void csv(ResultRow row) {
+        HotelResult r = row.result();
+        csvField(row.block()).append(',');
+        csvField(row.city()).append(',');
+        if (row.checkIn() != null) line.append(row.checkIn());
+        line.append(',');
+        if (row.checkOut() != null) line.append(row.checkOut());
+        line.append(',').append(r.position()).append(',');
+        csvField(r.name()).append(',');
+        if (r.hasPrice()) appendMajor(r.priceMinor());
+        line.append(',');
+        if (r.currency() != null) line.append(r.currency());
+        line.append(',');
+        if (r.hasRating()) line.append(r.rating());
+    }
+
+    private void json(ResultRow row) {
+        HotelResult r = row.result();
+        line.append("{\"block\":");
+        jsonString(row.block());
+        line.append(",\"city\":");
+        jsonString(row.city());
+        line.append(",\"checkIn\":");
+        jsonString(row.checkIn() == null ? null : row.checkIn().toString());
+        line.append(",\"checkOut\":");
+        jsonString(row.checkOut() == null ? null : row.checkOut().toString());
+        line.append(",\"position\":").append(r.position());
+        line.append(",\"name\":");
+        jsonString(r.name());
+        line.append(",\"priceMinor\":");
+        if (r.hasPrice()) line.append(r.priceMinor()); else line.append("null");
+        line.append(",\"currency\":");
+        jsonString(r.currency());
+        line.append(",\"rating\":");
+        if (r.hasRating()) line.append(r.rating()); else line.append("null");
+        line.append('}');
+    }
+
+    private StringBuilder csvField(String s) {
+        if (s == null) return line;
+        boolean quote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+        if (!quote) return line.append(s);
+        line.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private void jsonString(String s) {
+        if (s == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) line.append(String.format("\\u%04x", (int) c));
+                    else line.append(c);
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    /** 12345 -> "123.45" without going through double. */
+    private void appendMajor(long minor) {
+        line.append(minor / 100).append('.');
+        long cents = minor % 100;
+        if (cents < 10) line.append('0');
+        line.append(cents);
+    }
+}
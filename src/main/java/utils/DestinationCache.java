@@ -0,0 +1,164 @@
+
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Persistent city -> destination map for the search-by-URL fast path (test-data/destinations.tsv).
+ * - learn(): takes the results URL the UI flow ended on, e.g.
+ *   https://www.trivago.in/en-IN/srl/hotels-mumbai-india?search=200-64386;dr-20261020-20261022;rc-1-1;so-3
+ *   and keeps the destination id (200-...), the results path and the other search segments (sort etc.)
+ * - resultsUrl(): the same URL for other dates / guests, on the current base URL's origin
+ * - confirm(): checks a cached city against the URL a sampled UI flow ended on (destination id and
+ *   results path), relearning or dropping it on a mismatch
+ * - evict(): drops a city
+ *
+ * System properties:
+ *   destinations.file (default test-data/destinations.tsv)
+ **/
+public final class DestinationCache {
+
+    /** Destination id, results path and the search segments other than destination / dates / rooms. */
+    public record Destination(String id, String path, String segments, String query) {}
+
+    private static final String HEADER = "#destinations v1";
+    private static final DateTimeFormatter COMPACT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path file;
+    private final Map<String, Destination> byCity = new HashMap<>();
+
+    public DestinationCache(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /** Cache file from destinations.file (default test-data/destinations.tsv). */
+    public static DestinationCache defaultCache() {
+        return new DestinationCache(Paths.get(System.getProperty("destinations.file",
+                Paths.get(System.getProperty("user.dir"), "test-data", "destinations.tsv").toString())));
+    }
+
+    public synchronized Optional<Destination> get(String city) {
+        return Optional.ofNullable(byCity.get(keyOf(city)));
+    }
+
+    /**
+     * Remembers the destination of a results URL.
+     *
+     * @return false if the URL has no destination / date range in the expected format
+     */
+    public synchronized boolean learn(String city, String resultsUrl) {
+        Optional<Destination> d = parse(resultsUrl);
+        if (d.isEmpty()) return false;
+        if (!d.get().equals(byCity.put(keyOf(city), d.get()))) save();
+        return true;
+    }
+
+    /**
+     * Compares the cached destination with the results URL the UI flow ended on.
+     *
+     * Other search segments / query parameters are refreshed from the URL, not compared.
+     *
+     * @return true if they are the same destination; otherwise the city now maps to the URL's
+     *         destination, or is dropped when the URL is not understood
+     */
+    public synchronized boolean confirm(String city, String resultsUrl) {
+        Optional<Destination> d = parse(resultsUrl);
+        if (d.isEmpty()) {
+            evict(city);
+            return false;
+        }
+        Destination cached = byCity.get(keyOf(city));
+        learn(city, resultsUrl);
+        return cached != null && cached.id().equals(d.get().id()) && cached.path().equals(d.get().path());
+    }
+
+    public synchronized void evict(String city) {
+        if (byCity.remove(keyOf(city)) != null) save();
+    }
+
+    /** Results URL for this destination, dates and adults (one room) on baseUrl's origin. */
+    public static String resultsUrl(Destination d, String baseUrl, LocalDate checkIn, LocalDate checkOut, int adults) {
+        String search = "200-" + d.id()
+                + ";dr-" + checkIn.format(COMPACT) + "-" + checkOut.format(COMPACT)
+                + ";rc-1-" + adults
+                + d.segments();
+        return URI.create(baseUrl).resolve(d.path()) + "?search=" + search + d.query();
+    }
+
+    /** Destination parts of a results URL; empty unless it carries 200-<id> and dr-<in>-<out>. */
+    static Optional<Destination> parse(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (uri.getRawPath() == null || uri.getRawQuery() == null) return Optional.empty();
+
+        String id = null, search = null;
+        StringBuilder segments = new StringBuilder(), query = new StringBuilder();
+        for (String param : uri.getRawQuery().split("&")) {
+            if (param.startsWith("search=")) search = param.substring("search=".length());
+            else if (!param.isEmpty()) query.append('&').append(param);
+        }
+        if (search == null) return Optional.empty();
+
+        boolean dates = false;
+        for (String seg : search.split(";")) {
+            if (seg.startsWith("200-")) id = seg.substring(4);
+            else if (seg.startsWith("dr-")) dates = true;
+            else if (!seg.startsWith("rc-") && !seg.isEmpty()) segments.append(';').append(seg);
+        }
+        if (id == null || id.isEmpty() || !dates) return Optional.empty();
+        return Optional.of(new Destination(id, uri.getRawPath(), segments.toString(), query.toString()));
+    }
+
+    // --------- persistence ---------
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(in.readLine())) return;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = line.split("\t", -1);
+                if (f.length == 5) byCity.put(f[0], new Destination(f[1], f[2], f[3], f[4]));
+            }
+        } catch (IOException e) {
+            System.err.println("[Destinations] ignoring " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void save() {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "destinations", ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                out.write(HEADER);
+                out.newLine();
+                for (Map.Entry<String, Destination> e : new TreeMap<>(byCity).entrySet()) {
+                    Destination d = e.getValue();
+                    out.write(e.getKey() + '\t' + d.id() + '\t' + d.path() + '\t' + d.segments() + '\t' + d.query());
+                    out.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[Destinations] write failed: " + e.getMessage());
+        }
+    }
+
+    private static String keyOf(String city) {
+        return city.trim().toLowerCase(Locale.ROOT).replace('\t', ' ');
+    }
+}
@@ -0,0 +1,159 @@
+
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk LRU for static assets.
+ * - One body file (<sha>.bin) + one meta file (<sha>.meta: url, then one "Name: value" line per
+ *   stored response header) per entry
+ * - Index is rebuilt from the directory on start (oldest mtime = least recently used)
+ * - When total body bytes exceed maxBytes, least recently used entries are deleted
+ **/
+public class DiskLruCache {
+
+    /** headers: the response headers stored with the body, in the order they were put. */
+    public record Entry(String url, Map<String, String> headers, byte[] body) {}
+
+    private record Slot(Map<String, String> headers, long size) {}
+
+    private final Path dir;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Slot> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public DiskLruCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    public synchronized Optional<Entry> get(String url) {
+        Slot slot = index.get(url);
+        if (slot == null) return Optional.empty();
+        try {
+            Path body = bodyFile(url);
+            byte[] bytes = Files.readAllBytes(body);
+            Files.setLastModifiedTime(body, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(new Entry(url, slot.headers(), bytes));
+        } catch (IOException e) {
+            remove(url);
+            return Optional.empty();
+        }
+    }
+
+    public synchronized void put(String url, Map<String, String> headers, byte[] body) {
+        if (body.length > maxBytes) return;
+        Map<String, String> kept = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        StringBuilder meta = new StringBuilder(url);
+        kept.forEach((name, value) -> meta.append('\n').append(name).append(": ").append(value));
+        try {
+            Files.createDirectories(dir);
+            Files.write(bodyFile(url), body);
+            Files.writeString(metaFile(url), meta, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("[NetCache] write failed for " + url + ": " + e.getMessage());
+            return;
+        }
+        Slot old = index.put(url, new Slot(kept, body.length));
+        if (old != null) totalBytes -= old.size();
+        totalBytes += body.length;
+        evict();
+    }
+
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    // --------- helpers ---------
+
+    private void evict() {
+        Iterator<Map.Entry<String, Slot>> lru = index.entrySet().iterator();
+        while (totalBytes > maxBytes && lru.hasNext()) {
+            Map.Entry<String, Slot> e = lru.next();
+            totalBytes -= e.getValue().size();
+            lru.remove();
+            deleteFiles(e.getKey());
+        }
+    }
+
+    private void remove(String url) {
+        Slot s = index.remove(url);
+        if (s != null) totalBytes -= s.size();
+        deleteFiles(url);
+    }
+
+    private void deleteFiles(String url) {
+        try {
+            Files.deleteIfExists(bodyFile(url));
+            Files.deleteIfExists(metaFile(url));
+        } catch (IOException ignored) {}
+    }
+
+    /** Re-index entries left by earlier runs, least recently used first. */
+    private void load() {
+        if (!Files.isDirectory(dir)) return;
+        List<Path> bodies;
+        try (Stream<Path> s = Files.list(dir)) {
+            bodies = new ArrayList<>(s.filter(p -> p.toString().endsWith(".bin")).toList());
+        } catch (IOException e) {
+            return;
+        }
+        bodies.sort(Comparator.comparingLong(DiskLruCache::mtime));
+        for (Path body : bodies) {
+            Path meta = body.resolveSibling(body.getFileName().toString().replace(".bin", ".meta"));
+            try {
+                String[] m = Files.readString(meta, StandardCharsets.UTF_8).split("\n");
+                long size = Files.size(body);
+                index.put(m[0], new Slot(parseHeaders(m), size));
+                totalBytes += size;
+            } catch (IOException e) {
+                try { Files.deleteIfExists(body); } catch (IOException ignored) {}
+            }
+        }
+        evict();
+    }
+
+    /** Header lines after the url; a bare second line is a content type from an older entry. */
+    private static Map<String, String> parseHeaders(String[] meta) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 1; i < meta.length; i++) {
+            int colon = meta[i].indexOf(": ");
+            if (colon > 0) headers.put(meta[i].substring(0, colon), meta[i].substring(colon + 2));
+            else if (i == 1 && !meta[i].isEmpty()) headers.put("Content-Type", meta[i]);
+        }
+        return Collections.unmodifiableMap(headers);
+    }
+
+    private static long mtime(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private Path bodyFile(String url) {
+        return dir.resolve(hash(url) + ".bin");
+    }
+
+    private Path metaFile(String url) {
+        return dir.resolve(hash(url) + ".meta");
+    }
+
+    private static String hash(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+
+package utils;
+
+import org.openqa.selenium.*;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Event-driven waits built on a MutationObserver that is injected once per document.
+ * - awaitMutation(): returns on the next DOM mutation (after a frame) or after maxMs
+ * - until(): polls a condition, sleeping on mutations with an adaptive interval instead of fixed sleeps
+ **/
+public final class DomWaits {
+
+    private static final long MIN_INTERVAL_MS = 20;
+    private static final long MAX_INTERVAL_MS = 500;
+
+    /** Installs window.__domWaits once; every later call only registers a one-shot listener. */
+    public static final String INSTALL_JS =
+            "var w = window.__domWaits;" +
+            "if (!w) {" +
+            "  w = window.__domWaits = { seq: 0, listeners: [] };" +
+            "  new MutationObserver(function () {" +
+            "    w.seq++;" +
+            "    var l = w.listeners; w.listeners = [];" +
+            "    l.forEach(function (f) { f(); });" +
+            "  }).observe(document.documentElement," +
+            "      { childList: true, subtree: true, attributes: true, characterData: true });" +
+            "}";
+
+    private static final String AWAIT_MUTATION_JS = INSTALL_JS +
+            "var max = arguments[0], done = arguments[arguments.length - 1], fired = false;" +
+            "var finish = function (mutated) {" +
+            "  if (fired) return; fired = true;" +
+            "  requestAnimationFrame(function () { done(mutated); });" +
+            "};" +
+            "w.listeners.push(function () { finish(true); });" +
+            "setTimeout(function () { finish(false); }, max);";
+
+    private DomWaits() {}
+
+    /** Blocks until the DOM mutates (true) or maxMs elapses (false). */
+    public static boolean awaitMutation(WebDriver driver, long maxMs) {
+        try {
+            Object r = ((JavascriptExecutor) driver).executeAsyncScript(AWAIT_MUTATION_JS, maxMs);
+            return Boolean.TRUE.equals(r);
+        } catch (WebDriverException e) {
+            // page navigated mid-wait or scripts unavailable: behave like a plain sleep
+            sleepQuiet(maxMs);
+            return false;
+        }
+    }
+
+    /**
+     * Re-evaluates condition after each DOM mutation; when the DOM is quiet the
+     * interval doubles (20ms .. 500ms) so idle pages are not hammered.
+     */
+    public static <T> T until(WebDriver driver, Duration timeout, Function<WebDriver, T> condition) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        long interval = MIN_INTERVAL_MS;
+        while (true) {
+            try {
+                T value = condition.apply(driver);
+                if (value != null && !Boolean.FALSE.equals(value)) return value;
+            } catch (NoSuchElementException | StaleElementReferenceException ignored) {
+                // not there yet
+            }
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                throw new TimeoutException("Condition not met within " + timeout.toMillis() + " ms");
+            }
+            boolean mutated = awaitMutation(driver, Math.min(interval, left));
+            interval = mutated ? MIN_INTERVAL_MS : Math.min(interval * 2, MAX_INTERVAL_MS);
+        }
+    }
+
+    private static void sleepQuiet(long ms) {
+        try { Thread.sleep(ms); } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread-safe front end for CityResults.xlsx (the xlsx ResultSink).
+ * - Any test thread may push sheet/row operations (lock-free queue, FIFO per producer)
+ * - One daemon writer thread owns the ExcelResultWriter and applies them in order
+ * - close() drains the queue, then flushes and closes the workbook; an op submitted while close()
+ *   runs is either written or rejected with IllegalStateException, never dropped silently
+ **/
+public class ExcelResultSink implements ResultSink {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final Map<String, ExcelResultSink> OPEN = new HashMap<>();
+
+    @FunctionalInterface
+    private interface Op {
+        void apply(ExcelResultWriter writer) throws IOException;
+    }
+
+    private final ExcelResultWriter writer;
+    private final ConcurrentLinkedQueue<Op> queue = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean closing;
+    private volatile boolean closed; // worker gone; close() applies what is left itself
+
+    private ExcelResultSink(String path) throws IOException {
+        this.writer = ExcelResultWriter.open(path);
+        this.worker = new Thread(this::drainLoop, "excel-sink-" + new File(path).getName());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /** Shared sink for this path (one writer thread per file per run). */
+    public static synchronized ExcelResultSink open(String path) throws IOException {
+        String key = new File(path).getAbsolutePath();
+        ExcelResultSink s = OPEN.get(key);
+        if (s == null || s.closing) {
+            s = new ExcelResultSink(key);
+            OPEN.put(key, s);
+        }
+        return s;
+    }
+
+    /** Drain and close every sink opened in this run (suite end). */
+    public static synchronized void closeAll() {
+        for (ExcelResultSink s : OPEN.values()) s.close();
+        OPEN.clear();
+    }
+
+    @Override
+    public void ensureSheetWithHeaders(String sheetName) {
+        submit(w -> w.ensureSheetWithHeaders(sheetName));
+    }
+
+    @Override
+    public void clearDataKeepHeader(String sheetName) {
+        submit(w -> w.clearDataKeepHeader(sheetName));
+    }
+
+    @Override
+    public void writeCheckInOutSideBlock(String sheetName, LocalDate checkIn, LocalDate checkOut) {
+        submit(w -> w.writeCheckInOutSideBlock(sheetName, checkIn, checkOut));
+    }
+
+    @Override
+    public void appendHotelRow(String sheetName, HotelResult result) {
+        submit(w -> w.appendHotelRow(sheetName, result));
+    }
+
+    /** Blocks until everything queued so far has been written to disk. */
+    @Override
+    public void sync() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        submit(w -> {
+            try {
+                w.flush();
+            } finally {
+                done.complete(null);
+            }
+        });
+        done.join();
+    }
+
+    @Override
+    public void close() {
+        if (closing) return;
+        closing = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closed = true;
+        // ops offered after the worker's last poll (submit passed its check just before closing was set)
+        for (Op op; (op = queue.poll()) != null; ) apply(op);
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("[Excel] close failed: " + e.getMessage());
+        }
+    }
+
+    // --------- writer thread ---------
+
+    private void submit(Op op) {
+        if (closing) throw new IllegalStateException("Excel sink already closed");
+        queue.offer(op);
+        LockSupport.unpark(worker);
+        // close() drains once more after setting closed; if the op is still here, nobody will apply it
+        if (closed && queue.remove(op)) throw new IllegalStateException("Excel sink already closed");
+    }
+
+    private void drainLoop() {
+        while (true) {
+            Op op = queue.poll();
+            if (op == null) {
+                if (closing) return;
+                flushIfDue();
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            apply(op);
+        }
+    }
+
+    private void apply(Op op) {
+        try {
+            op.apply(writer);
+        } catch (Exception e) {
+            System.err.println("[Excel] queued write failed: " + e.getMessage());
+        }
+    }
+
+    private void flushIfDue() {
+        try {
+            writer.flushIfDue();
+        } catch (IOException e) {
+            System.err.println("[Excel] periodic flush failed: " + e.getMessage());
+        }
+    }
+}
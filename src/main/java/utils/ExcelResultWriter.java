@@ -0,0 +1,338 @@
+
+package utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.*;
+import pages.HotelResult;
+
+/**
+ * Session-scoped writer for CityResults.xlsx.
+ * - Workbook is parsed once per run and kept in memory
+ * - Next write row (A..C) is cached per sheet after the first scan
+ * - Rows are flushed to disk on a row/time threshold and on close()
+ * - Column widths are tracked per written cell (ColumnWidths) and set once per flush
+ * - HotelResult rows get numeric Price (currency format) / Ratings cells; missing values stay blank
+ * - Parallel tests should go through ExcelResultSink, which owns one writer per file
+ *
+ * Thresholds (system properties):
+ *   excel.flushRows   (default 200,   0 = only on close)
+ *   excel.flushMillis (default 30000, 0 = only on close)
+ **/
+public class ExcelResultWriter implements Closeable {
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Map<String, ExcelResultWriter> OPEN = new HashMap<>();
+    private static final Map<String, String> CURRENCY_SYMBOLS = Map.of("INR", "₹", "USD", "$", "EUR", "€", "GBP", "£");
+
+    private final File file;
+    private final XSSFWorkbook wb;
+    private final CellStyle bold;
+    private final CellStyle ratingStyle;
+    private final Map<String, CellStyle> priceStyles = new HashMap<>();
+    private final Map<String, Integer> nextRow = new HashMap<>();
+    private final Set<String> dirtySheets = new LinkedHashSet<>();
+    private final Map<String, ColumnWidths> widths = new HashMap<>();
+
+    private final int flushEveryRows;
+    private final long flushEveryMillis;
+    private int pendingRows;
+    private long lastFlush = System.currentTimeMillis();
+    private boolean closed;
+
+    private ExcelResultWriter(String path) throws IOException {
+        this.file = new File(path);
+        if (file.exists()) {
+            try (FileInputStream fi = new FileInputStream(file)) {
+                this.wb = new XSSFWorkbook(fi);
+            }
+        } else {
+            this.wb = new XSSFWorkbook();
+        }
+        this.bold = wb.createCellStyle();
+        Font font = wb.createFont();
+        font.setBold(true);
+        bold.setFont(font);
+        this.ratingStyle = wb.createCellStyle();
+        ratingStyle.setDataFormat(wb.createDataFormat().getFormat("0.0"));
+
+        this.flushEveryRows = Integer.getInteger("excel.flushRows", 200);
+        this.flushEveryMillis = Long.getLong("excel.flushMillis", 30_000L);
+    }
+
+    /** Shared writer for this path (one open workbook per file per run). */
+    public static synchronized ExcelResultWriter open(String path) throws IOException {
+        String key = new File(path).getAbsolutePath();
+        ExcelResultWriter w = OPEN.get(key);
+        if (w == null || w.closed) {
+            w = new ExcelResultWriter(key);
+            OPEN.put(key, w);
+        }
+        return w;
+    }
+
+    /** Flush and close every writer opened in this run (suite end). */
+    public static synchronized void closeAll() {
+        for (ExcelResultWriter w : OPEN.values()) {
+            try {
+                w.close();
+            } catch (IOException e) {
+                System.err.println("[Excel] close failed for " + w.file + ": " + e.getMessage());
+            }
+        }
+        OPEN.clear();
+    }
+
+    /** Ensure sheet (City) exists with headers A1..C1. */
+    public synchronized void ensureSheetWithHeaders(String sheetName) {
+        XSSFSheet sheet = getOrCreateSheet(sheetName);
+        Row header = getOrCreateRow(sheet, 0);
+        setCellString(header, 0, "Hotel Name");
+        setCellString(header, 1, "Price");
+        setCellString(header, 2, "Ratings");
+        for (int c = 0; c <= 2; c++) header.getCell(c).setCellStyle(bold);
+        observeHeader(sheetName, sheet, header);
+        dirtySheets.add(sheetName);
+    }
+
+    /** Clear data rows but keep header row (recreate sheet to avoid holes). */
+    public synchronized void clearDataKeepHeader(String sheetName) {
+        int idx = wb.getSheetIndex(sheetName);
+        String h0 = null, h1 = null, h2 = null;
+        if (idx >= 0) {
+            Row header = wb.getSheetAt(idx).getRow(0);
+            h0 = getCellText(header, 0);
+            h1 = getCellText(header, 1);
+            h2 = getCellText(header, 2);
+            wb.removeSheetAt(idx);
+        }
+
+        XSSFSheet sheet = wb.createSheet(sheetName);
+        if (idx >= 0) wb.setSheetOrder(sheetName, idx);
+        Row header = sheet.createRow(0);
+        setCellString(header, 0, (h0 == null || h0.isBlank()) ? "Hotel Name" : h0);
+        setCellString(header, 1, (h1 == null || h1.isBlank()) ? "Price" : h1);
+        setCellString(header, 2, (h2 == null || h2.isBlank()) ? "Ratings" : h2);
+        for (int c = 0; c <= 2; c++) header.getCell(c).setCellStyle(bold);
+        widths.put(sheetName, new ColumnWidths());
+        observeHeader(sheetName, sheet, header);
+
+        nextRow.put(sheetName, 1);
+        dirtySheets.add(sheetName);
+    }
+
+    /** Write Check-in/Check-out on the right (header rows): F1/G1 and F2/G2. */
+    public synchronized void writeCheckInOutSideBlock(String sheetName, LocalDate checkIn, LocalDate checkOut) {
+        XSSFSheet sheet = getOrCreateSheet(sheetName);
+
+        Row r0 = getOrCreateRow(sheet, 0);
+        setCellString(r0, 5, "Check-in");                 // F1
+        setCellString(r0, 6, checkIn.format(DATE_FMT));   // G1
+
+        Row r1 = getOrCreateRow(sheet, 1);
+        setCellString(r1, 5, "Check-out");                // F2
+        setCellString(r1, 6, checkOut.format(DATE_FMT));  // G2
+
+        ColumnWidths w = widthsFor(sheetName, sheet);
+        w.observe(5, "Check-out");
+        w.observe(6, r0.getCell(6).getStringCellValue());
+        w.observe(6, r1.getCell(6).getStringCellValue());
+        dirtySheets.add(sheetName);
+    }
+
+    /** Append hotel row to A..C without gaps; returns the 0-based row index written. */
+    public synchronized int appendHotelRow(String sheetName, String hotelName, String price, String ratings)
+            throws IOException {
+        XSSFSheet sheet = getOrCreateSheet(sheetName);
+
+        int writeIdx = nextRow.computeIfAbsent(sheetName, k -> findNextWriteRowAC(sheet));
+        Row row = getOrCreateRow(sheet, writeIdx);
+        setCellString(row, 0, hotelName);
+        setCellString(row, 1, price);
+        setCellString(row, 2, ratings);
+        nextRow.put(sheetName, writeIdx + 1);
+
+        ColumnWidths w = widthsFor(sheetName, sheet);
+        w.observe(0, hotelName);
+        w.observe(1, price);
+        w.observe(2, ratings);
+
+        dirtySheets.add(sheetName);
+        pendingRows++;
+        if (thresholdReached()) flush();
+        return writeIdx;
+    }
+
+    /** Append a typed result: name as text, price (major units) and rating as numbers. */
+    public synchronized int appendHotelRow(String sheetName, HotelResult result) throws IOException {
+        XSSFSheet sheet = getOrCreateSheet(sheetName);
+
+        int writeIdx = nextRow.computeIfAbsent(sheetName, k -> findNextWriteRowAC(sheet));
+        Row row = getOrCreateRow(sheet, writeIdx);
+        setCellString(row, 0, result.name());
+        if (result.hasPrice()) {
+            setCellNumber(row, 1, result.priceMinor() / 100.0, priceStyle(result.currency()));
+        } else {
+            setCellBlank(row, 1);
+        }
+        if (result.hasRating()) {
+            setCellNumber(row, 2, Math.round(result.rating() * 10_000d) / 10_000d, ratingStyle); // no float noise
+        } else {
+            setCellBlank(row, 2);
+        }
+        nextRow.put(sheetName, writeIdx + 1);
+
+        ColumnWidths w = widthsFor(sheetName, sheet);
+        w.observe(0, result.name());
+        if (result.hasPrice()) w.observeNumber(1, result.priceMinor() / 100, 2, currencyChars(result.currency()));
+        if (result.hasRating()) w.observeNumber(2, (long) result.rating(), 1, 0);
+
+        dirtySheets.add(sheetName);
+        pendingRows++;
+        if (thresholdReached()) flush();
+        return writeIdx;
+    }
+
+    /** Set tracked column widths and serialize the workbook once. */
+    public synchronized void flush() throws IOException {
+        if (closed || dirtySheets.isEmpty()) return;
+
+        for (String name : dirtySheets) {
+            XSSFSheet sheet = wb.getSheet(name);
+            ColumnWidths w = widths.get(name);
+            if (sheet != null && w != null) w.apply(sheet);
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        try (FileOutputStream fo = new FileOutputStream(file)) {
+            wb.write(fo);
+        }
+
+        dirtySheets.clear();
+        pendingRows = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    /** Flush only when the row/time threshold has been reached. */
+    public synchronized void flushIfDue() throws IOException {
+        if (thresholdReached()) flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        try {
+            flush();
+        } finally {
+            closed = true;
+            wb.close();
+        }
+    }
+
+    // --------- helpers ---------
+
+    private boolean thresholdReached() {
+        if (flushEveryRows > 0 && pendingRows >= flushEveryRows) return true;
+        return flushEveryMillis > 0 && System.currentTimeMillis() - lastFlush >= flushEveryMillis;
+    }
+
+    /** Tracker for this sheet; the first one starts from widths saved by an earlier run. */
+    private ColumnWidths widthsFor(String sheetName, Sheet sheet) {
+        return widths.computeIfAbsent(sheetName, k -> ColumnWidths.seededFrom(sheet, 0, 1, 2, 5, 6));
+    }
+
+    private void observeHeader(String sheetName, Sheet sheet, Row header) {
+        ColumnWidths w = widthsFor(sheetName, sheet);
+        for (int c = 0; c <= 2; c++) w.observe(c, header.getCell(c).getStringCellValue(), true);
+    }
+
+    /** Characters the price format adds around the number (symbol, or " CODE"). */
+    private static int currencyChars(String currency) {
+        if (currency == null) return 0;
+        return CURRENCY_SYMBOLS.containsKey(currency) ? 1 : currency.length() + 1;
+    }
+
+    private XSSFSheet getOrCreateSheet(String sheetName) {
+        XSSFSheet sheet = wb.getSheet(sheetName);
+        return (sheet != null) ? sheet : wb.createSheet(sheetName);
+    }
+
+    private static Row getOrCreateRow(Sheet s, int rowIndex) {
+        Row r = s.getRow(rowIndex);
+        if (r == null) r = s.createRow(rowIndex);
+        return r;
+    }
+
+    private static void setCellString(Row row, int col, String val) {
+        Cell cell = row.getCell(col);
+        if (cell == null) cell = row.createCell(col);
+        cell.setCellValue(val == null ? "" : val);
+    }
+
+    private static void setCellNumber(Row row, int col, double val, CellStyle style) {
+        Cell cell = row.getCell(col);
+        if (cell == null) cell = row.createCell(col);
+        cell.setCellValue(val);
+        cell.setCellStyle(style);
+    }
+
+    private static void setCellBlank(Row row, int col) {
+        Cell cell = row.getCell(col);
+        if (cell == null) cell = row.createCell(col);
+        cell.setBlank();
+    }
+
+    /** One cached style per currency (a workbook holds at most 64k styles). */
+    private CellStyle priceStyle(String currency) {
+        return priceStyles.computeIfAbsent(currency == null ? "" : currency, c -> {
+            String symbol = CURRENCY_SYMBOLS.get(c);
+            String format = (symbol != null) ? "\"" + symbol + "\"#,##0.00"
+                          : c.isEmpty()      ? "#,##0.00"
+                          : "#,##0.00 \"" + c + "\"";
+            CellStyle style = wb.createCellStyle();
+            style.setDataFormat(wb.createDataFormat().getFormat(format));
+            return style;
+        });
+    }
+
+    private static String getCellText(Row row, int col) {
+        if (row == null) return null;
+        Cell cell = row.getCell(col);
+        if (cell == null) return null;
+        return new DataFormatter().formatCellValue(cell);
+    }
+
+    /** First empty row >= 1 considering only A..C (only scanned once per sheet). */
+    private static int findNextWriteRowAC(Sheet sheet) {
+        DataFormatter fmt = new DataFormatter();
+        int r = 1;
+        while (true) {
+            Row row = sheet.getRow(r);
+            if (row == null || isRowACEmpty(row, fmt)) return r;
+            r++;
+        }
+    }
+
+    private static boolean isRowACEmpty(Row row, DataFormatter fmt) {
+        for (int c = 0; c <= 2; c++) {
+            Cell cell = row.getCell(c);
+            if (cell != null && cell.getCellType() != CellType.BLANK) {
+                String txt = fmt.formatCellValue(cell);
+                if (txt != null && !txt.isBlank()) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -43,11 +43,13 @@ public class ExcelWriters {
         Font font = wb.createFont();
         font.setBold(true);
         bold.setFont(font);
+        ColumnWidths widths = ColumnWidths.seededFrom(sheet, 0, 1, 2);
         for (int c = 0; c <= 2; c++) {
             Cell cell = header.getCell(c);
             if (cell != null) cell.setCellStyle(bold);
-            sheet.autoSizeColumn(c);
+            widths.observe(c, getCellText(header, c), true);
         }
+        widths.apply(sheet);
 
         try (FileOutputStream fo = new FileOutputStream(file)) {
             wb.write(fo);
@@ -90,11 +92,13 @@ public class ExcelWriters {
             Font font = wb.createFont();
             font.setBold(true);
             bold.setFont(font);
+            ColumnWidths widths = new ColumnWidths();
             for (int c = 0; c <= 2; c++) {
                 Cell cell = newHeader.getCell(c);
                 if (cell != null) cell.setCellStyle(bold);
-                sheet.autoSizeColumn(c);
+                widths.observe(c, getCellText(newHeader, c), true);
             }
+            widths.apply(sheet);
 
             try (FileOutputStream fo = new FileOutputStream(file)) {
                 wb.write(fo);
@@ -122,8 +126,11 @@ public class ExcelWriters {
             setCellString(r1, 5, "Check-out");           // F2
             setCellString(r1, 6, checkOut.format(DATE_FMT)); // G2
 
-            sheet.autoSizeColumn(5);
-            sheet.autoSizeColumn(6);
+            ColumnWidths widths = ColumnWidths.seededFrom(sheet, 5, 6);
+            widths.observe(5, "Check-out");
+            widths.observe(6, checkIn.format(DATE_FMT));
+            widths.observe(6, checkOut.format(DATE_FMT));
+            widths.apply(sheet);
 
             try (FileOutputStream fo = new FileOutputStream(path)) {
                 wb.write(fo);
@@ -148,9 +155,12 @@ public class ExcelWriters {
             setCellString(row, 1, price);
             setCellString(row, 2, ratings);
 
-            sheet.autoSizeColumn(0);
-            sheet.autoSizeColumn(1);
-            sheet.autoSizeColumn(2);
+            // only the new cells can widen a column; no full-column measuring
+            ColumnWidths widths = ColumnWidths.seededFrom(sheet, 0, 1, 2);
+            widths.observe(0, hotelName);
+            widths.observe(1, price);
+            widths.observe(2, ratings);
+            widths.apply(sheet);
 
             try (FileOutputStream fo = new FileOutputStream(path)) {
                 wb.write(fo);
@@ -0,0 +1,180 @@
+
+package utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Per-page element cache, used by the page objects instead of PageFactory proxies.
+ * - find(): resolves a locator once and hands out the same element until it is evicted
+ * - Evicted when the element goes stale or is not (yet) visible / clickable in clickable(),
+ *   visible(), isDisplayed(), so a broad locator is re-resolved until it hits the right element;
+ *   with() retries once on staleness; invalidate() after the page object navigates
+ * - findAll(): uncached, for collections whose contents change (suggestions, result cards)
+ * - Resolution count / time and cache hits per locator; report() -> target/metrics/locators.json
+ **/
+public final class LocatorCache {
+
+    private static final class Stat {
+        final LongAdder hits = new LongAdder();
+        final LongAdder resolves = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+
+    private static final Map<String, Stat> STATS = new ConcurrentHashMap<>();
+
+    private final WebDriver driver;
+    private final Map<By, WebElement> elements = new HashMap<>();
+
+    public LocatorCache(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /** Cached element; throws NoSuchElementException like driver.findElement when absent. */
+    public WebElement find(By by) {
+        Stat s = STATS.computeIfAbsent(by.toString(), k -> new Stat());
+        WebElement el = elements.get(by);
+        if (el != null) {
+            s.hits.increment();
+            return el;
+        }
+        long t0 = System.nanoTime();
+        try {
+            el = driver.findElement(by);
+        } finally {
+            s.resolves.increment();
+            s.nanos.add(System.nanoTime() - t0);
+        }
+        elements.put(by, el);
+        return el;
+    }
+
+    /** Uncached, timed lookup. */
+    public List<WebElement> findAll(By by) {
+        Stat s = STATS.computeIfAbsent(by.toString(), k -> new Stat());
+        long t0 = System.nanoTime();
+        try {
+            return driver.findElements(by);
+        } finally {
+            s.resolves.increment();
+            s.nanos.add(System.nanoTime() - t0);
+        }
+    }
+
+    /** Runs action on the cached element; if it went stale, re-resolves once and retries. */
+    public <T> T with(By by, Function<WebElement, T> action) {
+        try {
+            return action.apply(find(by));
+        } catch (StaleElementReferenceException e) {
+            elements.remove(by);
+            return action.apply(find(by));
+        }
+    }
+
+    /** Displayed right now; false when missing, hidden or stale (no exception). */
+    public boolean isDisplayed(By by) {
+        try {
+            if (find(by).isDisplayed()) return true;
+            elements.remove(by);
+            return false;
+        } catch (StaleElementReferenceException e) {
+            elements.remove(by);
+            return false;
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+
+    /** ExpectedConditions.visibilityOf for a cached locator. */
+    public ExpectedCondition<WebElement> visible(By by) {
+        return d -> {
+            try {
+                WebElement el = find(by);
+                if (el.isDisplayed()) return el;
+                elements.remove(by);
+                return null;
+            } catch (StaleElementReferenceException e) {
+                elements.remove(by);
+                return null;
+            }
+        };
+    }
+
+    /** ExpectedConditions.elementToBeClickable for a cached locator. */
+    public ExpectedCondition<WebElement> clickable(By by) {
+        return d -> {
+            try {
+                WebElement el = find(by);
+                if (el.isDisplayed() && el.isEnabled()) return el;
+                elements.remove(by);
+                return null;
+            } catch (StaleElementReferenceException e) {
+                elements.remove(by);
+                return null;
+            }
+        };
+    }
+
+    /** Drop everything (after a navigation or a full re-render). */
+    public void invalidate() {
+        elements.clear();
+    }
+
+    // --------- suite report ---------
+
+    /** Console table + JSON export (suite end). No-op when nothing was looked up. */
+    public static void report() {
+        if (STATS.isEmpty()) return;
+        List<Map.Entry<String, Stat>> rows = new ArrayList<>(STATS.entrySet());
+        rows.sort((a, b) -> Long.compare(b.getValue().nanos.sum(), a.getValue().nanos.sum()));
+
+        System.out.println("================== LOCATOR RESOLUTION ==================");
+        System.out.printf("%8s %8s %10s  %s%n", "resolves", "hits", "total ms", "locator");
+        for (Map.Entry<String, Stat> e : rows) {
+            Stat s = e.getValue();
+            System.out.printf("%8d %8d %10d  %s%n", s.resolves.sum(), s.hits.sum(), s.nanos.sum() / 1_000_000, e.getKey());
+        }
+        System.out.println("========================================================\n");
+
+        Path out = Paths.get(System.getProperty("user.dir"), "target", "metrics", "locators.json");
+        try {
+            Files.createDirectories(out.getParent());
+            Files.writeString(out, toJson(rows), StandardCharsets.UTF_8);
+            System.out.println("[Metrics] " + out.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("[Metrics] export failed: " + e.getMessage());
+        }
+    }
+
+    private static String toJson(List<Map.Entry<String, Stat>> rows) {
+        StringBuilder sb = new StringBuilder("{");
+        String sep = "\n";
+        for (Map.Entry<String, Stat> e : rows) {
+            Stat s = e.getValue();
+            long n = s.resolves.sum();
+            double ms = s.nanos.sum() / 1_000_000.0;
+            sb.append(sep).append("  \"").append(e.getKey().replace("\\", "\\\\").replace("\"", "\\\"")).append("\": {")
+                    .append("\"resolves\": ").append(n)
+                    .append(", \"hits\": ").append(s.hits.sum())
+                    .append(", \"totalMs\": ").append(Math.round(ms))
+                    .append(", \"avgMs\": ").append(n == 0 ? 0 : Math.round(ms / n * 100) / 100.0)
+                    .append('}');
+            sep = ",\n";
+        }
+        return sb.append("\n}\n").toString();
+    }
+}
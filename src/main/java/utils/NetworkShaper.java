@@ -0,0 +1,190 @@
+
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpHandler;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * DevTools request interception for Chromium sessions.
+ * - URLs matching net.block globs are answered locally with an empty 204
+ * - GET static assets (js, css, fonts, images) are served from a shared DiskLruCache
+ *   under target/net-cache/ and stored there on first fetch, with the headers in REPLAYED_HEADERS
+ *   (type, caching, validators, CORS); Content-Encoding / Content-Length are not kept, since the
+ *   stored body is the decoded one
+ * - Blocked / cached / fetched request and byte counts per session; take() reads and resets them
+ * - With a ReplayArchive attached, fetched HTML / JSON responses are also recorded for offline replay
+ *
+ * System properties:
+ *   net.block   comma-separated globs (default: ad / analytics hosts and hotel thumbnails)
+ *   net.cacheMb (default 256) disk cache size bound
+ **/
+public class NetworkShaper implements AutoCloseable {
+
+    private static final String DEFAULT_BLOCK = String.join(",",
+            "*doubleclick.net/*", "*googlesyndication.com/*", "*google-analytics.com/*",
+            "*googletagmanager.com/*", "*googleadservices.com/*", "*facebook.net/*",
+            "*hotjar.com/*", "*criteo.com/*", "*adnxs.com/*", "*taboola.com/*",
+            "*imgcy.trivago.com/*");
+
+    private static final Pattern STATIC_ASSET = Pattern.compile(
+            ".*\\.(js|mjs|css|woff2?|ttf|otf|png|jpe?g|gif|webp|avif|svg|ico)$");
+
+    /** Response headers stored with a cached asset and sent again on a hit. */
+    private static final List<String> REPLAYED_HEADERS = List.of(
+            "Content-Type", "Cache-Control", "Expires", "ETag", "Last-Modified", "Vary",
+            "Access-Control-Allow-Origin", "Access-Control-Allow-Credentials", "Access-Control-Expose-Headers",
+            "Timing-Allow-Origin", "Cross-Origin-Resource-Policy");
+
+    private static final DiskLruCache CACHE = new DiskLruCache(
+            Paths.get(System.getProperty("user.dir"), "target", "net-cache"),
+            Long.getLong("net.cacheMb", 256L) * 1024 * 1024);
+
+    private static final List<Pattern> BLOCK = Arrays.stream(System.getProperty("net.block", DEFAULT_BLOCK).split(","))
+            .map(String::trim)
+            .filter(g -> !g.isEmpty())
+            .map(NetworkShaper::glob)
+            .toList();
+
+    /** Snapshot of one session's traffic since the last take(). */
+    public record Stats(long blocked, long cached, long cachedBytes, long fetched, long fetchedBytes) {
+        @Override
+        public String toString() {
+            return String.format("blocked=%d cached=%d (%d KB) fetched=%d (%d KB)",
+                    blocked, cached, cachedBytes / 1024, fetched, fetchedBytes / 1024);
+        }
+    }
+
+    private final NetworkInterceptor interceptor;
+    private final boolean shaping;
+    private final ReplayArchive recorder;
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong cached = new AtomicLong();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong fetchedBytes = new AtomicLong();
+
+    private NetworkShaper(WebDriver driver, boolean shaping, ReplayArchive recorder) {
+        this.shaping = shaping;
+        this.recorder = recorder;
+        this.interceptor = new NetworkInterceptor(driver, (Filter) this::handle);
+    }
+
+    /** Attaches to a Chromium session; returns null for drivers without DevTools. */
+    public static NetworkShaper attach(WebDriver driver) {
+        return attach(driver, true, null);
+    }
+
+    /**
+     * @param shaping  block / cache as described above
+     * @param recordTo archive for fetched HTML / JSON responses (null = no recording)
+     */
+    public static NetworkShaper attach(WebDriver driver, boolean shaping, ReplayArchive recordTo) {
+        if (!(driver instanceof HasDevTools)) {
+            System.err.println("[Net] " + driver.getClass().getSimpleName() + " has no DevTools; shaping/recording disabled");
+            return null;
+        }
+        return new NetworkShaper(driver, shaping, recordTo);
+    }
+
+    public Stats take() {
+        return new Stats(blocked.getAndSet(0), cached.getAndSet(0), cachedBytes.getAndSet(0),
+                fetched.getAndSet(0), fetchedBytes.getAndSet(0));
+    }
+
+    @Override
+    public void close() {
+        try { interceptor.close(); } catch (Exception ignored) {}
+    }
+
+    // --------- interception ---------
+
+    private HttpHandler handle(HttpHandler next) {
+        return req -> {
+            String url = req.getUri();
+
+            if (shaping && isBlocked(url)) {
+                blocked.incrementAndGet();
+                return new HttpResponse().setStatus(204);
+            }
+
+            boolean cacheable = shaping && isCacheable(req);
+            if (cacheable) {
+                var hit = CACHE.get(url);
+                if (hit.isPresent()) {
+                    cached.incrementAndGet();
+                    cachedBytes.addAndGet(hit.get().body().length);
+                    HttpResponse res = new HttpResponse().setStatus(200).setContent(Contents.bytes(hit.get().body()));
+                    hit.get().headers().forEach(res::setHeader);
+                    return res;
+                }
+            }
+
+            HttpResponse res = next.execute(req);
+            fetched.incrementAndGet();
+            if (res == NetworkInterceptor.PROCEED_WITH_REQUEST) return res;
+
+            byte[] body = Contents.bytes(res.getContent());
+            fetchedBytes.addAndGet(body.length);
+            res.setContent(Contents.bytes(body));
+            if (cacheable && res.getStatus() == 200 && body.length > 0) {
+                CACHE.put(url, replayedHeaders(res), body);
+            }
+            if (recorder != null && ReplayArchive.isRecordable(res.getHeader("Content-Type"))) {
+                recorder.record(req.getMethod().name(), url, res.getStatus(), res.getHeader("Content-Type"), body);
+            }
+            return res;
+        };
+    }
+
+    private static Map<String, String> replayedHeaders(HttpResponse res) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_HEADERS) {
+            List<String> values = new ArrayList<>();
+            res.getHeaders(name).forEach(values::add);
+            if (!values.isEmpty()) headers.put(name, String.join(", ", values).replace('\n', ' '));
+        }
+        return headers;
+    }
+
+    private static boolean isBlocked(String url) {
+        for (Pattern p : BLOCK) {
+            if (p.matcher(url).matches()) return true;
+        }
+        return false;
+    }
+
+    private static boolean isCacheable(HttpRequest req) {
+        if (req.getMethod() != HttpMethod.GET) return false;
+        String url = req.getUri();
+        int cut = url.indexOf('?');
+        String path = (cut >= 0 ? url.substring(0, cut) : url).toLowerCase(Locale.ROOT);
+        return STATIC_ASSET.matcher(path).matches();
+    }
+
+    /** '*' matches anything; everything else is literal. */
+    private static Pattern glob(String g) {
+        StringBuilder re = new StringBuilder();
+        for (String part : g.split("\\*", -1)) {
+            if (re.length() > 0 || g.startsWith("*")) re.append(".*");
+            re.append(Pattern.quote(part));
+        }
+        return Pattern.compile(re.toString());
+    }
+}
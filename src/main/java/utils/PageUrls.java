@@ -0,0 +1,92 @@
+
+package utils;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Where the results page number lives in the site's URL, learned from two consecutive pages.
+ * - Either a query parameter (page=2) or a segment of the search parameter (search=...;pa-2)
+ * - forPage(): page n of the search whose first page is at page1Url
+ **/
+public final class PageUrls {
+
+    private final boolean searchSegment;
+    private final String name;
+
+    private PageUrls(boolean searchSegment, String name) {
+        this.searchSegment = searchSegment;
+        this.name = name;
+    }
+
+    /** Rule from the URLs of pages 1 and 2 of one search; empty if the page number is not in the URL. */
+    public static Optional<PageUrls> learn(String page1Url, String page2Url) {
+        URI u1, u2;
+        try {
+            u1 = URI.create(page1Url);
+            u2 = URI.create(page2Url);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!Objects.equals(u1.getRawPath(), u2.getRawPath())) return Optional.empty();
+
+        Map<String, String> q1 = params(u1.getRawQuery()), q2 = params(u2.getRawQuery());
+        for (Map.Entry<String, String> p : q2.entrySet()) {
+            String before = q1.get(p.getKey());
+            if ("2".equals(p.getValue()) && (before == null || "1".equals(before))) {
+                return Optional.of(new PageUrls(false, p.getKey()));
+            }
+        }
+
+        List<String> s1 = segments(q1.get("search")), s2 = segments(q2.get("search"));
+        for (String seg : s2) {
+            if (s1.contains(seg) || !seg.endsWith("2")) continue;
+            String prefix = seg.substring(0, seg.length() - 1);
+            boolean clean = s1.stream().noneMatch(s -> s.startsWith(prefix) && !s.equals(prefix + "1"));
+            if (!prefix.isEmpty() && clean) return Optional.of(new PageUrls(true, prefix));
+        }
+        return Optional.empty();
+    }
+
+    public String forPage(String page1Url, int page) {
+        URI u = URI.create(page1Url);
+        Map<String, String> q = params(u.getRawQuery());
+        if (searchSegment) {
+            List<String> segs = new ArrayList<>(segments(q.get("search")));
+            segs.removeIf(s -> s.startsWith(name));
+            segs.add(name + page);
+            q.put("search", String.join(";", segs));
+        } else {
+            q.put(name, Integer.toString(page));
+        }
+        StringJoiner query = new StringJoiner("&");
+        q.forEach((k, v) -> query.add(v == null ? k : k + '=' + v));
+
+        String base = page1Url.contains("?") ? page1Url.substring(0, page1Url.indexOf('?')) : page1Url;
+        int hash = base.indexOf('#');
+        if (hash >= 0) base = base.substring(0, hash);
+        return base + '?' + query;
+    }
+
+    @Override
+    public String toString() {
+        return searchSegment ? "search segment " + name + "<n>" : "query parameter " + name + "=<n>";
+    }
+
+    private static Map<String, String> params(String rawQuery) {
+        Map<String, String> out = new LinkedHashMap<>();
+        if (rawQuery == null) return out;
+        for (String p : rawQuery.split("&")) {
+            if (p.isEmpty()) continue;
+            int eq = p.indexOf('=');
+            if (eq < 0) out.put(p, null);
+            else out.put(p.substring(0, eq), p.substring(eq + 1));
+        }
+        return out;
+    }
+
+    private static List<String> segments(String search) {
+        if (search == null || search.isEmpty()) return List.of();
+        return Arrays.asList(search.split(";"));
+    }
+}
@@ -0,0 +1,179 @@
+
+package utils;
+
+/**
+ * Hand-written parsers for scraped price / rating text (no regex, no substrings).
+ * - Prices: "₹4,599", "₹ 1,23,456", "Total ₹12,345.50", "€1.234,56", "Rs. 4599", "1 234 €", "₹1.5L"
+ *   Group separators: , . ' space NBSP, one kind per price, each followed by exactly 3 digits
+ *   (or 2 digits for Indian lakh/crore grouping, which still ends in a 3-digit group).
+ *   A , or . that is not a group separator is the decimal point when 1-2 digits follow it.
+ *   The number ends at the first separator that fits neither ("₹4,599 2 nights" is 4599).
+ *   A trailing L / lakh / lac or Cr / crore scales it (1.5L = 150000).
+ * - Ratings: "8.7", "8,7", "8.7/10", "Rating: 9"
+ **/
+public final class PriceParser {
+
+    /** No price found in the text. */
+    public static final long NO_PRICE = -1L;
+
+    /** Guards against overflowing long minor units on garbage input. */
+    private static final int MAX_DIGITS = 15;
+
+    private static final String[] LAKH = {"l", "lac", "lacs", "lakh", "lakhs"};
+    private static final String[] CRORE = {"cr", "crore", "crores"};
+
+    private PriceParser() {}
+
+    /** Price in minor units (paise / cents), or NO_PRICE. */
+    public static long parsePriceMinor(CharSequence text) {
+        if (text == null) return NO_PRICE;
+        int start = firstDigit(text, currencyEnd(text));
+        if (start < 0) start = firstDigit(text, 0);
+        if (start < 0) return NO_PRICE;
+
+        int n = text.length();
+        int digits = digitRun(text, start);
+        if (digits > MAX_DIGITS) return NO_PRICE;
+        long whole = digitsValue(text, start, digits), fraction = 0;
+        boolean grouped = digits <= 3; // "4599 200" is not a grouped number
+        char groupSeparator = 0;
+        int i = start + digits;
+        while (i + 1 < n && isSeparator(text.charAt(i)) && isDigit(text.charAt(i + 1))) {
+            char c = text.charAt(i);
+            int run = digitRun(text, i + 1);
+            if (grouped && (groupSeparator == 0 || c == groupSeparator) && isGroup(text, i, run)) {
+                if ((digits += run) > MAX_DIGITS) return NO_PRICE;
+                whole = whole * (run == 3 ? 1000 : 100) + digitsValue(text, i + 1, run);
+                groupSeparator = c;
+                i += 1 + run;
+                continue;
+            }
+            if ((c == ',' || c == '.') && c != groupSeparator && run <= 2) {
+                fraction = digitsValue(text, i + 1, run) * (run == 1 ? 10 : 1);
+                i += 1 + run;
+            }
+            break;
+        }
+        try {
+            return Math.multiplyExact(whole * 100 + fraction, magnitude(text, i));
+        } catch (ArithmeticException e) {
+            return NO_PRICE;
+        }
+    }
+
+    /** ISO 4217 code for the first currency marker in the text, or null. */
+    public static String currencyOf(CharSequence text) {
+        if (text == null) return null;
+        int n = text.length();
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '₹': return "INR";
+                case '$': return "USD";
+                case '€': return "EUR";
+                case '£': return "GBP";
+                default:
+                    if (regionMatches(text, i, "Rs") || regionMatches(text, i, "INR")) return "INR";
+            }
+        }
+        return null;
+    }
+
+    /** Rating as a float ("8,7" and "8.7" alike), or NaN. */
+    public static float parseRating(CharSequence text) {
+        if (text == null) return Float.NaN;
+        int i = firstDigit(text, 0);
+        if (i < 0) return Float.NaN;
+
+        int n = text.length(), whole = 0, fraction = 0, scale = 1;
+        while (i < n && isDigit(text.charAt(i)) && whole < 1000) whole = whole * 10 + (text.charAt(i++) - '0');
+        if (i + 1 < n && (text.charAt(i) == '.' || text.charAt(i) == ',') && isDigit(text.charAt(i + 1))) {
+            i++;
+            while (i < n && isDigit(text.charAt(i)) && scale < 1000) {
+                fraction = fraction * 10 + (text.charAt(i++) - '0');
+                scale *= 10;
+            }
+        }
+        return whole + (float) fraction / scale;
+    }
+
+    // --------- helpers ---------
+
+    /** Index just after the currency marker (so "Rs. 4599" skips the dot), or 0 when there is none. */
+    private static int currencyEnd(CharSequence text) {
+        int n = text.length();
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c == '₹' || c == '$' || c == '€' || c == '£') return i + 1;
+            if (regionMatches(text, i, "INR")) return i + 3;
+            if (regionMatches(text, i, "Rs")) return i + 2;
+        }
+        return 0;
+    }
+
+    private static int firstDigit(CharSequence text, int from) {
+        for (int i = from, n = text.length(); i < n; i++) {
+            if (isDigit(text.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    private static int digitRun(CharSequence text, int from) {
+        int i = from, n = text.length();
+        while (i < n && isDigit(text.charAt(i))) i++;
+        return i - from;
+    }
+
+    private static long digitsValue(CharSequence text, int from, int count) {
+        long value = 0;
+        for (int i = from; i < from + count; i++) value = value * 10 + (text.charAt(i) - '0');
+        return value;
+    }
+
+    /**
+     * True when the separator at 'at' followed by 'run' digits is a group: 3 digits, or 2 digits
+     * (Indian grouping) when the same separator and another digit follow.
+     */
+    private static boolean isGroup(CharSequence text, int at, int run) {
+        if (run == 3) return true;
+        int after = at + 1 + run;
+        return run == 2 && after + 1 < text.length()
+                && text.charAt(after) == text.charAt(at) && isDigit(text.charAt(after + 1));
+    }
+
+    /** Multiplier for a lakh / crore word right after the number (spaces allowed), else 1. */
+    private static long magnitude(CharSequence text, int from) {
+        int i = from, n = text.length();
+        while (i < n && (text.charAt(i) == ' ' || text.charAt(i) == '\u00A0')) i++;
+        int end = i;
+        while (end < n && Character.isLetter(text.charAt(end))) end++;
+        for (String word : LAKH) if (wordMatches(text, i, end, word)) return 100_000L;
+        for (String word : CRORE) if (wordMatches(text, i, end, word)) return 10_000_000L;
+        return 1L;
+    }
+
+    /** Case-insensitive: text[from, end) is exactly the (lower-case) word. */
+    private static boolean wordMatches(CharSequence text, int from, int end, String word) {
+        if (end - from != word.length()) return false;
+        for (int k = 0; k < word.length(); k++) {
+            if (Character.toLowerCase(text.charAt(from + k)) != word.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ',' || c == '.' || c == ' ' || c == '\'' || c == '\u00A0' || c == '\u202F';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean regionMatches(CharSequence text, int at, String word) {
+        if (at + word.length() > text.length()) return false;
+        for (int k = 0; k < word.length(); k++) {
+            if (text.charAt(at + k) != word.charAt(k)) return false;
+        }
+        return true;
+    }
+}
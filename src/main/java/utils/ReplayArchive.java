@@ -0,0 +1,117 @@
+
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recorded HTML / XHR responses of a live run, replayable by ReplayServer.
+ * - <dir>/index.tsv: method, url, status, content type, body file (one line per response)
+ * - <dir>/bodies/<hash>: response bodies
+ * Entries are looked up by method + path?query, so the recorded host does not matter.
+ **/
+public class ReplayArchive {
+
+    public record Entry(String method, String url, int status, String contentType, Path body) {}
+
+    private final Path dir;
+    private final Map<String, Entry> byPathAndQuery = new ConcurrentHashMap<>();
+    private final Set<String> origins = ConcurrentHashMap.newKeySet();
+
+    public ReplayArchive(Path dir) {
+        this.dir = dir;
+        load();
+    }
+
+    public static ReplayArchive defaultArchive() {
+        return new ReplayArchive(Paths.get(System.getProperty("replay.dir",
+                Paths.get(System.getProperty("user.dir"), "test-data", "replay").toString())));
+    }
+
+    /** Only documents and XHR / fetch payloads are worth keeping. */
+    public static boolean isRecordable(String contentType) {
+        if (contentType == null) return false;
+        String ct = contentType.toLowerCase(Locale.ROOT);
+        return ct.contains("text/html") || ct.contains("json");
+    }
+
+    public synchronized void record(String method, String url, int status, String contentType, byte[] body) {
+        String key = key(method, url);
+        try {
+            Path bodies = Files.createDirectories(dir.resolve("bodies"));
+            Path file = bodies.resolve(hash(key));
+            Files.write(file, body);
+            try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("index.tsv"), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(String.join("\t", method, url, String.valueOf(status),
+                        contentType == null ? "" : contentType, file.getFileName().toString()));
+                out.newLine();
+            }
+            byPathAndQuery.put(key, new Entry(method, url, status, contentType, file));
+            origins.add(origin(url));
+        } catch (IOException e) {
+            System.err.println("[Replay] record failed for " + url + ": " + e.getMessage());
+        }
+    }
+
+    /** Latest recorded response for this method + path?query. */
+    public Optional<Entry> find(String method, String pathAndQuery) {
+        return Optional.ofNullable(byPathAndQuery.get(method.toUpperCase(Locale.ROOT) + " " + pathAndQuery));
+    }
+
+    /** scheme://host[:port] of every recorded URL (rewritten to the local server on replay). */
+    public Set<String> origins() {
+        return Collections.unmodifiableSet(origins);
+    }
+
+    public boolean isEmpty() {
+        return byPathAndQuery.isEmpty();
+    }
+
+    // --------- helpers ---------
+
+    private void load() {
+        Path index = dir.resolve("index.tsv");
+        if (!Files.exists(index)) return;
+        try {
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                String[] f = line.split("\t", -1);
+                if (f.length != 5) continue;
+                Entry e = new Entry(f[0], f[1], Integer.parseInt(f[2]), f[3].isEmpty() ? null : f[3],
+                        dir.resolve("bodies").resolve(f[4]));
+                byPathAndQuery.put(key(f[0], f[1]), e); // later lines win
+                origins.add(origin(f[1]));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[Replay] cannot read " + index + ": " + e.getMessage());
+        }
+    }
+
+    private static String key(String method, String url) {
+        URI u = URI.create(url);
+        String pq = (u.getRawPath() == null || u.getRawPath().isEmpty() ? "/" : u.getRawPath())
+                + (u.getRawQuery() == null ? "" : "?" + u.getRawQuery());
+        return method.toUpperCase(Locale.ROOT) + " " + pq;
+    }
+
+    private static String origin(String url) {
+        URI u = URI.create(url);
+        return u.getScheme() + "://" + u.getRawAuthority();
+    }
+
+    private static String hash(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
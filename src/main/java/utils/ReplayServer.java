@@ -0,0 +1,122 @@
+
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server for offline runs of the page objects.
+ * - Recorded entries (ReplayArchive) are served first, with recorded origins rewritten to this server
+ * - Anything else falls back to the bundled stand-in site (classpath /standin/), which exposes the
+ *   same hooks the page objects use: input-auto-complete, Qrvi3L suggestions, valid-calendar-day-*,
+ *   adults minus / Apply, sorting_selector, accommodation-list-element cards and next-result-page;
+ *   its results URLs (/srl/<city>?search=...) open the results view directly
+ **/
+public class ReplayServer implements AutoCloseable {
+
+    private static final String STANDIN_ROOT = "/standin";
+
+    private final HttpServer server;
+    private final ReplayArchive archive;
+
+    private ReplayServer(ReplayArchive archive, int port) throws IOException {
+        this.archive = archive;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "replay-server");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /** Starts on 127.0.0.1:port (0 = any free port). */
+    public static ReplayServer start(ReplayArchive archive, int port) throws IOException {
+        ReplayServer s = new ReplayServer(archive, port);
+        s.server.start();
+        System.out.println("[Replay] Serving " + s.baseUrl()
+                + (archive.isEmpty() ? " (stand-in site only)" : " (recorded archive + stand-in site)"));
+        return s;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    // --------- handler ---------
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            URI uri = ex.getRequestURI();
+            String path = (uri.getRawPath() == null || uri.getRawPath().isEmpty()) ? "/" : uri.getRawPath();
+            String pq = path + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+
+            Optional<ReplayArchive.Entry> hit = archive.find(ex.getRequestMethod(), pq);
+            if (hit.isEmpty()) hit = archive.find(ex.getRequestMethod(), path);
+            if (hit.isPresent()) {
+                ReplayArchive.Entry e = hit.get();
+                byte[] body = Files.readAllBytes(e.body());
+                if (isText(e.contentType())) body = rewriteOrigins(body);
+                send(ex, e.status(), e.contentType(), body);
+                return;
+            }
+
+            boolean page = "/".equals(path) || path.startsWith("/srl/");
+            String resource = STANDIN_ROOT + (page ? "/index.html" : path);
+            try (InputStream in = ReplayServer.class.getResourceAsStream(resource)) {
+                if (in != null && !path.contains("..")) {
+                    send(ex, 200, contentTypeFor(resource), in.readAllBytes());
+                    return;
+                }
+            }
+            send(ex, 404, "text/plain", ("Not recorded: " + pq).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private byte[] rewriteOrigins(byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8);
+        String local = baseUrl().substring(0, baseUrl().length() - 1);
+        for (String origin : archive.origins()) text = text.replace(origin, local);
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange ex, int status, String contentType, byte[] body) throws IOException {
+        if (contentType != null) ex.getResponseHeaders().set("Content-Type", contentType);
+        ex.getResponseHeaders().set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static boolean isText(String contentType) {
+        if (contentType == null) return false;
+        String ct = contentType.toLowerCase(Locale.ROOT);
+        return ct.startsWith("text/") || ct.contains("json") || ct.contains("javascript");
+    }
+
+    private static String contentTypeFor(String resource) {
+        if (resource.endsWith(".html")) return "text/html; charset=utf-8";
+        if (resource.endsWith(".js")) return "application/javascript; charset=utf-8";
+        if (resource.endsWith(".css")) return "text/css; charset=utf-8";
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,151 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * File-backed cache of scraped result pages under target/result-cache/.
+ * - Key: city, check-in, check-out, sort order, page number
+ * - Entry: one file per key (header line + one tab-separated line per hotel:
+ *   position, name, price in minor units, currency, rating)
+ * - Entries older than cache.ttlMinutes are ignored and deleted
+ * - Above cache.maxEntries files, the oldest entries (by write time) are evicted
+ *
+ * System properties:
+ *   cache.ttlMinutes (default 360)
+ *   cache.maxEntries (default 2000)
+ **/
+public final class ResultCache {
+
+    public record Key(String city, String checkIn, String checkOut, String sort, int page) {
+        String asText() {
+            return city.trim().toLowerCase(Locale.ROOT) + '|' + checkIn + '|' + checkOut + '|' + sort + '|' + page;
+        }
+    }
+
+    private static final String HEADER = "#result-cache v2";
+
+    private final Path dir;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public ResultCache(Path dir, long ttlMillis, int maxEntries) {
+        this.dir = dir;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /** Default cache under target/result-cache with TTL / size from system properties. */
+    public static ResultCache defaultCache() {
+        return new ResultCache(
+                Paths.get(System.getProperty("user.dir"), "target", "result-cache"),
+                Long.getLong("cache.ttlMinutes", 360L) * 60_000L,
+                Integer.getInteger("cache.maxEntries", 2000));
+    }
+
+    /** Cached cards for this page, or empty if missing / expired / unreadable. */
+    public synchronized Optional<List<HotelResult>> get(Key key) {
+        Path file = fileFor(key);
+        try {
+            if (!Files.exists(file)) return Optional.empty();
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > ttlMillis) {
+                Files.deleteIfExists(file);
+                return Optional.empty();
+            }
+            // first line is the header, second the key text (guards against hash collisions)
+            List<HotelResult> cards = new ArrayList<>();
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                if (!HEADER.equals(in.readLine()) || !key.asText().equals(in.readLine())) return Optional.empty();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] f = line.split("\t", -1);
+                    if (f.length == 5) {
+                        cards.add(new HotelResult(Integer.parseInt(f[0]), f[1], Long.parseLong(f[2]),
+                                f[3].isEmpty() ? null : f[3], Float.parseFloat(f[4])));
+                    }
+                }
+            }
+            return Optional.of(cards);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("[Cache] read failed for " + key + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** Stores a page; the entry's age (TTL and eviction order) counts from this write. */
+    public synchronized void put(Key key, List<HotelResult> cards) {
+        Path file = fileFor(key);
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "entry", ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                out.write(HEADER);
+                out.newLine();
+                out.write(key.asText());
+                out.newLine();
+                for (HotelResult c : cards) {
+                    out.write(c.position() + "\t" + clean(c.name()) + '\t' + c.priceMinor() + '\t'
+                            + clean(c.currency()) + '\t' + c.rating());
+                    out.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            evictIfNeeded();
+        } catch (IOException e) {
+            System.err.println("[Cache] write failed for " + key + ": " + e.getMessage());
+        }
+    }
+
+    // --------- helpers ---------
+
+    private void evictIfNeeded() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> s = Files.list(dir)) {
+            entries = s.filter(p -> p.getFileName().toString().endsWith(".tsv")).toList();
+        }
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) return;
+
+        List<Path> oldestFirst = new ArrayList<>(entries);
+        oldestFirst.sort(Comparator.comparingLong(ResultCache::mtime));
+        for (int i = 0; i < excess; i++) Files.deleteIfExists(oldestFirst.get(i));
+    }
+
+    private static long mtime(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private Path fileFor(Key key) {
+        return dir.resolve(sha256(key.asText()).substring(0, 32) + ".tsv");
+    }
+
+    private static String clean(String s) {
+        if (s == null) return "";
+        return s.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
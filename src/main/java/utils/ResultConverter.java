@@ -0,0 +1,160 @@
+
+package utils;
+
+import org.openqa.selenium.json.Json;
+import pages.HotelResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Post-run conversion of csv / jsonl / columnar results into the usual CityResults.xlsx layout.
+ * - One sheet per city with the rows of that city's last block (what the Excel sink would hold)
+ * - Other sheets already in the target workbook are kept
+ *
+ * Usage: java -cp <classpath> utils.ResultConverter <input.csv|.jsonl|.hrc> [output.xlsx]
+ **/
+public final class ResultConverter {
+
+    private ResultConverter() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ResultConverter <input.csv|.jsonl|.hrc> [output.xlsx]");
+            System.exit(2);
+        }
+        Path in = Paths.get(args[0]);
+        String name = in.getFileName().toString();
+        Path out = (args.length > 1) ? Paths.get(args[1])
+                : in.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".xlsx");
+        toXlsx(in, out);
+        System.out.println("[Results] " + in + " -> " + out);
+    }
+
+    public static void toXlsx(Path input, Path output) throws IOException {
+        Map<String, List<ResultRow>> current = new LinkedHashMap<>();
+        read(input, row -> {
+            List<ResultRow> rows = current.get(row.city());
+            if (rows == null || !rows.get(0).block().equals(row.block())) {
+                rows = new ArrayList<>();
+                current.put(row.city(), rows);
+            }
+            rows.add(row);
+        });
+
+        try (ExcelResultWriter xlsx = ExcelResultWriter.open(output.toString())) {
+            for (Map.Entry<String, List<ResultRow>> e : current.entrySet()) {
+                String city = e.getKey();
+                ResultRow first = e.getValue().get(0);
+                xlsx.ensureSheetWithHeaders(city);
+                xlsx.clearDataKeepHeader(city);
+                if (first.checkIn() != null && first.checkOut() != null) {
+                    xlsx.writeCheckInOutSideBlock(city, first.checkIn(), first.checkOut());
+                }
+                for (ResultRow r : e.getValue()) xlsx.appendHotelRow(city, r.result());
+            }
+        }
+    }
+
+    /** Rows of any supported format, in file order. */
+    public static void read(Path input, Consumer<ResultRow> rows) throws IOException {
+        String name = input.getFileName().toString().toLowerCase();
+        if (name.endsWith(".hrc")) {
+            ColumnarResultSink.read(input, rows);
+        } else if (name.endsWith(".jsonl")) {
+            readJsonLines(input, rows);
+        } else if (name.endsWith(".csv")) {
+            readCsv(input, rows);
+        } else {
+            throw new IllegalArgumentException("Unsupported result file: " + input);
+        }
+    }
+
+    // --------- readers ---------
+
+    private static void readJsonLines(Path input, Consumer<ResultRow> rows) throws IOException {
+        Json json = new Json();
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                Map<String, Object> m = json.toType(line, Json.MAP_TYPE);
+                rows.accept(new ResultRow((String) m.get("block"), (String) m.get("city"),
+                        date((String) m.get("checkIn")), date((String) m.get("checkOut")),
+                        new HotelResult(((Number) m.get("position")).intValue(), (String) m.get("name"),
+                                m.get("priceMinor") == null ? PriceParser.NO_PRICE : ((Number) m.get("priceMinor")).longValue(),
+                                (String) m.get("currency"),
+                                m.get("rating") == null ? Float.NaN : ((Number) m.get("rating")).floatValue())));
+            }
+        }
+    }
+
+    private static void readCsv(Path input, Consumer<ResultRow> rows) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            List<String> f = new ArrayList<>(9);
+            boolean header = true;
+            while (nextCsvRecord(in, f)) {
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                if (f.size() != 9) continue;
+                rows.accept(new ResultRow(f.get(0), f.get(1), date(f.get(2)), date(f.get(3)),
+                        new HotelResult(Integer.parseInt(f.get(4)), f.get(5),
+                                f.get(6).isEmpty() ? PriceParser.NO_PRICE : PriceParser.parsePriceMinor(f.get(6)),
+                                f.get(7).isEmpty() ? null : f.get(7),
+                                f.get(8).isEmpty() ? Float.NaN : Float.parseFloat(f.get(8)))));
+            }
+        }
+    }
+
+    /** RFC 4180 record (quoted fields may contain commas, quotes and newlines); false at EOF. */
+    private static boolean nextCsvRecord(BufferedReader in, List<String> fields) throws IOException {
+        fields.clear();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false, any = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        cur.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else {
+                    cur.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(cur.toString());
+                cur.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                cur.append((char) c);
+            }
+        }
+        if (!any) return false;
+        fields.add(cur.toString());
+        return true;
+    }
+
+    private static LocalDate date(String s) {
+        return (s == null || s.isEmpty()) ? null : LocalDate.parse(s);
+    }
+}
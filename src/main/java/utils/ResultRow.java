@@ -0,0 +1,14 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.time.LocalDate;
+
+/**
+ * One row as stored by the append-only sinks.
+ * - block: id of the clearDataKeepHeader() generation that wrote it; for each city only the
+ *   last block in the file is current (same semantics as the Excel sheet being rewritten)
+ **/
+public record ResultRow(String block, String city, LocalDate checkIn, LocalDate checkOut, HotelResult result) {
+}
@@ -0,0 +1,32 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+
+/**
+ * Destination for scraped results; SearchResultsPage and the tests only write through this.
+ * A "sheet" is one result group (a city): the Excel sink maps it to a worksheet, the
+ * append-only sinks to a column on every row. See ResultSinks for format selection.
+ **/
+public interface ResultSink extends Closeable {
+
+    /** Make sure the group exists (header row for tabular formats). */
+    void ensureSheetWithHeaders(String sheetName);
+
+    /** Start the group over; earlier rows of it are superseded. */
+    void clearDataKeepHeader(String sheetName);
+
+    /** Check-in / check-out dates of the group's current rows. */
+    void writeCheckInOutSideBlock(String sheetName, LocalDate checkIn, LocalDate checkOut);
+
+    void appendHotelRow(String sheetName, HotelResult result);
+
+    /** Blocks until everything written so far is on disk. */
+    void sync();
+
+    @Override
+    void close();
+}
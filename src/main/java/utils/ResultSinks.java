@@ -0,0 +1,91 @@
+
+package utils;
+
+import pages.HotelResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Picks the ResultSink implementation for the run.
+ * - results.format: xlsx (default, ExcelResultSink) | csv | jsonl | columnar (.hrc)
+ * - results.xlsx=true converts every non-xlsx output to <base>.xlsx when the suite closes the sinks
+ **/
+public final class ResultSinks {
+
+    private static final Map<Path, AppendResultSink> OPEN = new LinkedHashMap<>();
+
+    private static final ResultSink DISCARD = new ResultSink() {
+        @Override public void ensureSheetWithHeaders(String sheetName) {}
+        @Override public void clearDataKeepHeader(String sheetName) {}
+        @Override public void writeCheckInOutSideBlock(String sheetName, LocalDate checkIn, LocalDate checkOut) {}
+        @Override public void appendHotelRow(String sheetName, HotelResult result) {}
+        @Override public void sync() {}
+        @Override public void close() {}
+    };
+
+    private ResultSinks() {}
+
+    public static String format() {
+        return System.getProperty("results.format", "xlsx").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Output file for this base name in the run's format, e.g. test-data/CityResults.csv. */
+    public static Path fileFor(Path dir, String baseName) {
+        return dir.resolve(baseName + "." + extension(format()));
+    }
+
+    /** Shared sink for dir/baseName in the run's format (one per file per run). */
+    public static synchronized ResultSink open(Path dir, String baseName) throws IOException {
+        String format = format();
+        Path file = fileFor(dir, baseName).toAbsolutePath();
+        if ("xlsx".equals(format)) return ExcelResultSink.open(file.toString());
+
+        AppendResultSink s = OPEN.get(file);
+        if (s == null) {
+            s = switch (format) {
+                case "csv" -> new DelimitedResultSink(file, DelimitedResultSink.Format.CSV);
+                case "jsonl" -> new DelimitedResultSink(file, DelimitedResultSink.Format.JSONL);
+                default -> new ColumnarResultSink(file);
+            };
+            OPEN.put(file, s);
+        }
+        return s;
+    }
+
+    /** Sink that drops everything: scrape pages now, write the returned cards elsewhere later. */
+    public static ResultSink discard() {
+        return DISCARD;
+    }
+
+    /** Close every sink of this run (suite end); converts to xlsx when results.xlsx=true. */
+    public static synchronized void closeAll() {
+        ExcelResultSink.closeAll();
+        boolean convert = Boolean.getBoolean("results.xlsx");
+        for (Map.Entry<Path, AppendResultSink> e : OPEN.entrySet()) {
+            e.getValue().close();
+            if (!convert) continue;
+            Path in = e.getKey();
+            String name = in.getFileName().toString();
+            Path out = in.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".xlsx");
+            try {
+                ResultConverter.toXlsx(in, out);
+            } catch (IOException ex) {
+                System.err.println("[Results] xlsx conversion failed for " + in + ": " + ex.getMessage());
+            }
+        }
+        OPEN.clear();
+    }
+
+    private static String extension(String format) {
+        return switch (format) {
+            case "xlsx", "csv", "jsonl" -> format;
+            case "columnar", "hrc" -> "hrc";
+            default -> throw new IllegalArgumentException("Unsupported results.format: " + format);
+        };
+    }
+}
@@ -0,0 +1,201 @@
+
+package utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streaming reader for RunSet.xlsx (POI event/SAX API, no workbook DOM).
+ * - Columns A..C => City, CheckIn(yyyy-MM-dd), CheckOut(yyyy-MM-dd); row 1 is the header
+ * - Blank rows, bad date formats and check-out not after check-in are skipped
+ * - Rows are parsed on a background thread and handed out lazily as {city, checkIn, checkOut}
+ * - close() stops that thread when the rows are abandoned early (it would block on the full buffer)
+ **/
+public final class RunSetReader implements Iterator<Object[]>, AutoCloseable {
+
+    private static final Object[] END = new Object[0];
+    private static final int BUFFER_ROWS = 256;
+
+    private final BlockingQueue<Object[]> rows = new ArrayBlockingQueue<>(BUFFER_ROWS);
+    private volatile Exception failure;
+    private volatile boolean closed;
+    private Thread producer;
+    private Object[] next;
+
+    private RunSetReader() {}
+
+    /**
+     * Opens the file and locates the sheet synchronously (so a missing sheet is reported
+     * up front); parsing then continues in the background.
+     *
+     * @return lazy row iterator, or null if the sheet does not exist
+     */
+    public static RunSetReader open(Path input, String sheetName) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(input.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Cannot open " + input + ": " + e.getMessage(), e);
+        }
+
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            InputStream sheet = null;
+            while (sheets.hasNext()) {
+                InputStream s = sheets.next();
+                if (sheetName.equals(sheets.getSheetName())) {
+                    sheet = s;
+                    break;
+                }
+                s.close();
+            }
+            if (sheet == null) {
+                pkg.revert();
+                return null;
+            }
+
+            RunSetReader rs = new RunSetReader();
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            InputStream sheetData = sheet;
+
+            rs.producer = new Thread(() -> rs.parse(pkg, strings, styles, sheetData), "runset-reader");
+            rs.producer.setDaemon(true);
+            rs.producer.start();
+            return rs;
+        } catch (OpenXML4JException | SAXException | RuntimeException e) {
+            pkg.revert();
+            throw new IOException("Cannot read " + input + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Same validation as the original DOM-based data provider; null when the row is skipped. */
+    public static Object[] validate(String city, String checkInStr, String checkOutStr) {
+        if (isBlank(city) || isBlank(checkInStr) || isBlank(checkOutStr)) return null;
+
+        LocalDate ci, co;
+        try {
+            ci = LocalDate.parse(checkInStr.trim());
+            co = LocalDate.parse(checkOutStr.trim());
+        } catch (DateTimeParseException e) {
+            return null; // skip invalid date format
+        }
+        if (!co.isAfter(ci)) return null; // skip invalid date order
+
+        return new Object[]{city.trim(), ci.toString(), co.toString()};
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        if (next == null) {
+            try {
+                next = rows.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading RunSet", e);
+            }
+        }
+        if (next == END) {
+            if (failure != null) throw new IllegalStateException("RunSet parsing failed: " + failure.getMessage(), failure);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Object[] row = next;
+        next = null;
+        return row;
+    }
+
+    /** Stops the background parse and drops buffered rows; hasNext() is false afterwards. */
+    @Override
+    public void close() {
+        closed = true;
+        producer.interrupt();
+        rows.clear();
+    }
+
+    // --------- background parse ---------
+
+    private void parse(OPCPackage pkg, ReadOnlySharedStringsTable strings, StylesTable styles, InputStream sheet) {
+        try (sheet) {
+            XMLReader xml = XMLHelper.newXMLReader();
+            xml.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new RowCollector(), new DataFormatter(), false));
+            xml.parse(new InputSource(sheet));
+        } catch (Exception e) {
+            if (!closed) failure = e;
+        } finally {
+            pkg.revert();
+            put(END);
+        }
+    }
+
+    /** Blocks while the buffer is full; false once the reader is closed (nobody will take the row). */
+    private boolean put(Object[] row) {
+        while (!closed) {
+            try {
+                rows.put(row);
+                return true;
+            } catch (InterruptedException e) {
+                // close() interrupts the wait; the loop re-checks
+            }
+        }
+        return false;
+    }
+
+    private final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final String[] cells = new String[3];
+        private int rowNum;
+
+        @Override
+        public void startRow(int rowNum) {
+            this.rowNum = rowNum;
+            cells[0] = cells[1] = cells[2] = null;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null) return;
+            int col = new CellReference(cellReference).getCol();
+            if (col <= 2) cells[col] = formattedValue;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (this.rowNum == 0) return; // header
+            Object[] valid = validate(cells[0], cells[1], cells[2]);
+            if (valid != null && !put(valid)) throw new IllegalStateException("RunSet reader closed"); // ends the parse
+        }
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+}
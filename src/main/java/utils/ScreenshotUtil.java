@@ -2,33 +2,70 @@
 package utils;
 
 import org.openqa.selenium.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Screenshots under target/screenshots/<city>/.
+ *
+ * System properties:
+ *   screenshots.async (default false) capture bytes on the test thread, write on a background pool
+ *   screenshots.queue (default 16)    pending writes before the test thread writes itself (backpressure)
+ *   screenshots.scale (default 1.0)   0 < scale < 1 downscales the PNG before writing
+ **/
 public class ScreenshotUtil {
 
     private static final String ROOT_DIR = "target";
     private static final String SCREENSHOTS_DIR = "screenshots";
 
+    private static final boolean ASYNC = Boolean.getBoolean("screenshots.async");
+    private static final double SCALE = Double.parseDouble(System.getProperty("screenshots.scale", "1.0"));
+    private static volatile ThreadPoolExecutor writer;
+
     public static String takeScreenshot(WebDriver driver, String fileBase, String status) {
+        // EXTRACT CITY NAME → last part after underscore
+        // Example: 02_city_Mumbai_Info  → parts = ["02","city","Mumbai","Info"]
+        return takeScreenshot(driver, extractCityFromBase(sanitize(fileBase)), fileBase, status);
+    }
+
+    /** Same as above with an explicit folder (parallel runs pass their own per-row folder). */
+    public static String takeScreenshot(WebDriver driver, String folder, String fileBase, String status) {
         if (driver == null) return null;
 
         String safeBase   = sanitize(fileBase);
         String safeStatus = sanitize(status);
 
-        // EXTRACT CITY NAME → last part after underscore
-        // Example: 02_city_Mumbai_Info  → parts = ["02","city","Mumbai","Info"]
-        String city = extractCityFromBase(safeBase);
-
         // Create a folder per city
-        Path dir = Paths.get(System.getProperty("user.dir"), ROOT_DIR, SCREENSHOTS_DIR, city);
+        Path dir = Paths.get(System.getProperty("user.dir"), ROOT_DIR, SCREENSHOTS_DIR, sanitize(folder));
 
         String fileName = safeBase + "_" + safeStatus + ".png";
         Path dest = dir.resolve(fileName);
 
+        if (ASYNC) {
+            try {
+                byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+                writer().execute(() -> writeQuietly(dir, dest, png));
+                return dest.toAbsolutePath().toString();
+            } catch (WebDriverException e) {
+                System.err.println("[Screenshot][Error] " + e.getMessage());
+                return null;
+            }
+        }
+
         try {
             Files.createDirectories(dir);
             File src = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
@@ -41,6 +78,74 @@ public class ScreenshotUtil {
         }
     }
 
+    /** Wait for queued screenshot writes to finish (suite end). */
+    public static void drain() {
+        ThreadPoolExecutor pool;
+        synchronized (ScreenshotUtil.class) {
+            pool = writer;
+            writer = null;
+        }
+        if (pool == null) return;
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(2, TimeUnit.MINUTES)) {
+                System.err.println("[Screenshot][Error] Timed out draining " + pool.getQueue().size() + " pending writes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadPoolExecutor writer() {
+        ThreadPoolExecutor pool = writer;
+        if (pool != null) return pool;
+        synchronized (ScreenshotUtil.class) {
+            if (writer == null) {
+                int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+                AtomicInteger seq = new AtomicInteger();
+                writer = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(Integer.getInteger("screenshots.queue", 16)),
+                        r -> {
+                            Thread t = new Thread(r, "screenshot-writer-" + seq.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        },
+                        // queue full -> the test thread does the write itself; unlike CallerRunsPolicy
+                        // also after drain() shut this pool down under a late caller, so no shot is dropped
+                        (task, rejectedBy) -> task.run());
+                writer.allowCoreThreadTimeOut(true);
+            }
+            return writer;
+        }
+    }
+
+    private static void writeQuietly(Path dir, Path dest, byte[] png) {
+        try {
+            Files.createDirectories(dir);
+            Files.write(dest, (SCALE > 0 && SCALE < 1) ? downscale(png, SCALE) : png);
+            System.out.println("[Screenshot] " + dest.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("[Screenshot][Error] " + e.getMessage());
+        }
+    }
+
+    private static byte[] downscale(byte[] png, double scale) throws IOException {
+        BufferedImage src = ImageIO.read(new ByteArrayInputStream(png));
+        if (src == null) return png;
+        int w = Math.max(1, (int) (src.getWidth() * scale));
+        int h = Math.max(1, (int) (src.getHeight() * scale));
+
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(src, 0, 0, w, h, null);
+        g.dispose();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(out, "png", bytes);
+        return bytes.toByteArray();
+    }
+
     private static String sanitize(String name) {
         if (name == null) return "shot";
         return name.replaceAll("[^a-zA-Z0-9_.-]", "_");
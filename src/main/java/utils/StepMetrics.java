@@ -0,0 +1,165 @@
+
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Wall-clock time and WebDriver command count per E2E step / page-object method.
+ * - Test threads bind their browser and city; timers pick them up from the thread
+ * - report() prints p50/p95/p99 per step, grouped by city and by browser,
+ *   and exports target/metrics/step-timings.json
+ *
+ * Usage:
+ *   StepMetrics.time("dates", () -> { ... });
+ *   List<HotelResult> cards = StepMetrics.time("extract", () -> results.extractCards());
+ **/
+public final class StepMetrics {
+
+    private record Sample(String step, String city, String browser, long millis, long commands) {}
+
+    private static final class Context {
+        String city = "n/a";
+        String browser = "n/a";
+    }
+
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(Context::new);
+    private static final Queue<Sample> SAMPLES = new ConcurrentLinkedQueue<>();
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("metrics"));
+
+    private StepMetrics() {}
+
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    public static void bindBrowser(String browser) {
+        CONTEXT.get().browser = browser;
+    }
+
+    public static void bindCity(String city) {
+        CONTEXT.get().city = city;
+    }
+
+    public static void unbind() {
+        CONTEXT.remove();
+    }
+
+    /** Runs one step and records it (also when it throws). */
+    public static void time(String step, Runnable body) {
+        time(step, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /** Runs one step that produces a value and records it (also when it throws). */
+    public static <T> T time(String step, Supplier<T> body) {
+        long startNanos = System.nanoTime();
+        long startCommands = CommandRecorder.current();
+        try {
+            return body.get();
+        } finally {
+            if (ENABLED) {
+                Context ctx = CONTEXT.get();
+                SAMPLES.add(new Sample(step, ctx.city, ctx.browser,
+                        (System.nanoTime() - startNanos) / 1_000_000,
+                        CommandRecorder.current() - startCommands));
+            }
+        }
+    }
+
+    // --------- report ---------
+
+    /** Console summary + JSON export (suite end). No-op when nothing was recorded. */
+    public static void report() {
+        List<Sample> all = new ArrayList<>(SAMPLES);
+        if (all.isEmpty()) return;
+
+        System.out.println("==================== STEP TIMINGS (ms) ====================");
+        System.out.printf("%-40s %6s %8s %8s %8s %10s%n", "step", "n", "p50", "p95", "p99", "cmds/p50");
+        for (Map.Entry<String, List<Sample>> e : group(all, Sample::step).entrySet()) {
+            long[] ms = millis(e.getValue());
+            System.out.printf("%-40s %6d %8d %8d %8d %10d%n", e.getKey(), ms.length,
+                    pct(ms, 50), pct(ms, 95), pct(ms, 99), pct(commands(e.getValue()), 50));
+        }
+        System.out.println("============================================================\n");
+
+        Path out = Paths.get(System.getProperty("user.dir"), "target", "metrics", "step-timings.json");
+        try {
+            Files.createDirectories(out.getParent());
+            Files.writeString(out, toJson(all), StandardCharsets.UTF_8);
+            System.out.println("[Metrics] " + out.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("[Metrics] export failed: " + e.getMessage());
+        }
+    }
+
+    private static String toJson(List<Sample> all) {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"samples\": ").append(all.size()).append(",\n");
+        appendGroup(sb, "byCity", all, Sample::city);
+        sb.append(",\n");
+        appendGroup(sb, "byBrowser", all, Sample::browser);
+        sb.append("\n}\n");
+        return sb.toString();
+    }
+
+    /** "name": { "<key>": { "<step>": {n, p50, p95, p99, commandsP50, commandsP95} } } */
+    private static void appendGroup(StringBuilder sb, String name, List<Sample> all, Function<Sample, String> key) {
+        sb.append("  \"").append(name).append("\": {");
+        String sep = "\n";
+        for (Map.Entry<String, List<Sample>> g : group(all, key).entrySet()) {
+            sb.append(sep).append("    \"").append(json(g.getKey())).append("\": {");
+            sep = ",\n";
+            String stepSep = "\n";
+            for (Map.Entry<String, List<Sample>> s : group(g.getValue(), Sample::step).entrySet()) {
+                long[] ms = millis(s.getValue());
+                long[] cmds = commands(s.getValue());
+                sb.append(stepSep).append("      \"").append(json(s.getKey())).append("\": {")
+                        .append("\"n\": ").append(ms.length)
+                        .append(", \"p50\": ").append(pct(ms, 50))
+                        .append(", \"p95\": ").append(pct(ms, 95))
+                        .append(", \"p99\": ").append(pct(ms, 99))
+                        .append(", \"commandsP50\": ").append(pct(cmds, 50))
+                        .append(", \"commandsP95\": ").append(pct(cmds, 95))
+                        .append('}');
+                stepSep = ",\n";
+            }
+            sb.append("\n    }");
+        }
+        sb.append("\n  }");
+    }
+
+    private static Map<String, List<Sample>> group(List<Sample> samples, Function<Sample, String> key) {
+        Map<String, List<Sample>> m = new TreeMap<>();
+        for (Sample s : samples) m.computeIfAbsent(key.apply(s), k -> new ArrayList<>()).add(s);
+        return m;
+    }
+
+    private static long[] millis(List<Sample> s) {
+        return s.stream().mapToLong(Sample::millis).sorted().toArray();
+    }
+
+    private static long[] commands(List<Sample> s) {
+        return s.stream().mapToLong(Sample::commands).sorted().toArray();
+    }
+
+    /** Nearest-rank percentile of a sorted array. */
+    private static long pct(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static String json(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,93 @@
+
+package utils;
+
+import java.util.*;
+
+/**
+ * In-memory LRU of destination autocomplete resolutions, shared by all sessions of a run.
+ * - Key: city string as typed (trimmed, case-insensitive)
+ * - Value: the suggestion that was picked (text + data-* attributes) and the input's value afterwards
+ * - prefixFor(): shortest prefix that no other cached city shares (at least autocomplete.minPrefix
+ *   characters), or the whole name once a prefix did not bring the suggestion up
+ * - Least recently used entries are dropped above autocomplete.cacheSize cities
+ *
+ * System properties:
+ *   autocomplete.cacheSize (default 128)
+ *   autocomplete.minPrefix (default 3)
+ **/
+public final class SuggestionCache {
+
+    public record Resolution(String text, Map<String, String> attributes, String inputValue) {}
+
+    private static final class Entry {
+        final Resolution resolution;
+        boolean fullName;
+
+        Entry(Resolution resolution) {
+            this.resolution = resolution;
+        }
+    }
+
+    private static final SuggestionCache SHARED = new SuggestionCache(
+            Integer.getInteger("autocomplete.cacheSize", 128),
+            Integer.getInteger("autocomplete.minPrefix", 3));
+
+    private final int minPrefix;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public SuggestionCache(int maxEntries, int minPrefix) {
+        this.minPrefix = Math.max(1, minPrefix);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static SuggestionCache shared() {
+        return SHARED;
+    }
+
+    public synchronized Optional<Resolution> get(String city) {
+        Entry e = entries.get(keyOf(city));
+        return (e == null) ? Optional.empty() : Optional.of(e.resolution);
+    }
+
+    public synchronized void put(String city, Resolution resolution) {
+        entries.put(keyOf(city), new Entry(resolution));
+    }
+
+    public synchronized void evict(String city) {
+        entries.remove(keyOf(city));
+    }
+
+    /** The prefix did not bring the suggestion up: type the whole name from now on. */
+    public synchronized void useFullName(String city) {
+        Entry e = entries.get(keyOf(city));
+        if (e != null) e.fullName = true;
+    }
+
+    /** Characters of city (trimmed) to type on a cache hit. */
+    public synchronized String prefixFor(String city) {
+        String name = city.trim();
+        String key = keyOf(city);
+        Entry own = entries.get(key);
+        if (own == null || own.fullName) return name;
+
+        // one past the longest common prefix with any other cached city
+        int len = minPrefix;
+        for (String other : entries.keySet()) {
+            if (other.equals(key)) continue;
+            int common = 0;
+            int max = Math.min(other.length(), key.length());
+            while (common < max && other.charAt(common) == key.charAt(common)) common++;
+            len = Math.max(len, common + 1);
+        }
+        return name.substring(0, Math.min(len, name.length()));
+    }
+
+    private static String keyOf(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+}
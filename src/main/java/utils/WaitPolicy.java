@@ -0,0 +1,271 @@
+
+package utils;
+
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Central wait / retry policy for the page objects (replaces fixed 30s WebDriverWaits).
+ * - Every wait has a key (e.g. "HomePage.destination"); successful wait times are kept per key and
+ *   per context (site + launch profile, see bindContext), last 200, persisted across runs in wait.history
+ * - Timeout = 2 x p99 (required) or 2 x p95 (optional) of the recent samples + 500 ms, clamped;
+ *   keys with fewer than wait.minSamples samples use the caps
+ * - A required wait that runs out of its learned timeout keeps waiting up to the cap, and counts as
+ *   a sample at the cap, so a slower site widens the next timeouts instead of failing rows
+ * - optional(): elements that may legitimately be absent; times out fast and returns empty
+ * - retry(): bounded exponential backoff on stale / intercepted / not interactable elements
+ * - report(): per-key timeout, waits, timeouts, retries -> target/metrics/waits.json
+ *
+ * System properties:
+ *   wait.adaptive      (default true; false = always use the caps)
+ *   wait.maxSeconds    (default 30)   cap for required waits
+ *   wait.optionalMaxMs (default 5000) cap for optional waits
+ *   wait.minSamples    (default 10)
+ *   wait.history       (default target/metrics/wait-history.tsv)
+ **/
+public final class WaitPolicy {
+
+    private static final int WINDOW = 200;
+    private static final long MARGIN_MS = 500;
+    private static final long REQUIRED_FLOOR_MS = 1_000;
+    private static final long OPTIONAL_FLOOR_MS = 250;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BACKOFF_START_MS = 100;
+    private static final long BACKOFF_MAX_MS = 1_000;
+
+    private static final boolean ADAPTIVE = !"false".equalsIgnoreCase(System.getProperty("wait.adaptive", "true"));
+    private static final long REQUIRED_CAP_MS = Long.getLong("wait.maxSeconds", 30L) * 1000;
+    private static final long OPTIONAL_CAP_MS = Long.getLong("wait.optionalMaxMs", 5_000L);
+    private static final int MIN_SAMPLES = Integer.getInteger("wait.minSamples", 10);
+    private static final Path HISTORY = Paths.get(System.getProperty("wait.history",
+            Paths.get(System.getProperty("user.dir"), "target", "metrics", "wait-history.tsv").toString()));
+
+    private static final class Series {
+        final long[] samples = new long[WINDOW];
+        int size, next;
+        final LongAdder waits = new LongAdder(), timeouts = new LongAdder(), retries = new LongAdder();
+        volatile long lastTimeoutMs;
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void add(long ms) {
+            samples[next] = ms;
+            next = (next + 1) % WINDOW;
+            if (size < WINDOW) size++;
+        }
+
+        synchronized long percentile(int p) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(p / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, idx))];
+        }
+
+        /** Samples oldest first (for persisting). */
+        synchronized long[] ordered() {
+            long[] out = new long[size];
+            int start = (size < WINDOW) ? 0 : next;
+            for (int i = 0; i < size; i++) out[i] = samples[(start + i) % WINDOW];
+            return out;
+        }
+    }
+
+    private static final Map<String, Series> SERIES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String> CONTEXT = ThreadLocal.withInitial(() -> "default");
+
+    static {
+        load();
+    }
+
+    private WaitPolicy() {}
+
+    /** Site + launch profile of the current test thread's waits (e.g. "trivago.in/fast-headless"). */
+    public static void bindContext(String context) {
+        CONTEXT.set(context);
+    }
+
+    public static void unbind() {
+        CONTEXT.remove();
+    }
+
+    /** Waits for a required condition; TimeoutException after the learned timeout. */
+    public static <T> T until(WebDriver driver, String key, Function<WebDriver, T> condition) {
+        return await(driver, key, condition, false);
+    }
+
+    /** Waits briefly for an optional condition; empty instead of an exception when it does not happen. */
+    public static <T> Optional<T> optional(WebDriver driver, String key, Function<WebDriver, T> condition) {
+        try {
+            return Optional.of(await(driver, key, condition, true));
+        } catch (TimeoutException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Runs action, retrying stale / intercepted / not interactable elements after 100, 200, 400 ms pauses. */
+    public static <T> T retry(String key, Supplier<T> action) {
+        long backoff = BACKOFF_START_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (StaleElementReferenceException | ElementNotInteractableException e) {
+                if (attempt >= MAX_ATTEMPTS) throw e;
+                series(contextKey(key)).retries.increment();
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, BACKOFF_MAX_MS);
+            }
+        }
+    }
+
+    public static void retry(String key, Runnable action) {
+        retry(key, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /** Current timeout for this key. */
+    public static Duration timeoutFor(String key, boolean optional) {
+        long cap = optional ? OPTIONAL_CAP_MS : REQUIRED_CAP_MS;
+        Series s = SERIES.get(contextKey(key));
+        if (!ADAPTIVE || s == null || s.size() < MIN_SAMPLES) return Duration.ofMillis(cap);
+        long floor = optional ? OPTIONAL_FLOOR_MS : REQUIRED_FLOOR_MS;
+        long learned = 2 * s.percentile(optional ? 95 : 99) + MARGIN_MS;
+        return Duration.ofMillis(Math.max(floor, Math.min(cap, learned)));
+    }
+
+    // --------- report / persistence ---------
+
+    /** Console table, JSON export and history update (suite end). */
+    public static void report() {
+        if (SERIES.isEmpty()) return;
+        List<Map.Entry<String, Series>> rows = new ArrayList<>(new TreeMap<>(SERIES).entrySet());
+
+        System.out.println("===================== WAIT POLICY ======================");
+        System.out.printf("%7s %8s %7s %8s %9s  %s%n", "waits", "timeouts", "retries", "p95 ms", "timeout", "key");
+        StringBuilder json = new StringBuilder("{");
+        String sep = "\n";
+        for (Map.Entry<String, Series> e : rows) {
+            Series s = e.getValue();
+            int size = s.size();
+            long p95 = size == 0 ? 0 : s.percentile(95);
+            System.out.printf("%7d %8d %7d %8d %9d  %s%n",
+                    s.waits.sum(), s.timeouts.sum(), s.retries.sum(), p95, s.lastTimeoutMs, e.getKey());
+            json.append(sep).append("  \"").append(e.getKey()).append("\": {")
+                    .append("\"waits\": ").append(s.waits.sum())
+                    .append(", \"timeouts\": ").append(s.timeouts.sum())
+                    .append(", \"retries\": ").append(s.retries.sum())
+                    .append(", \"samples\": ").append(size)
+                    .append(", \"p50Ms\": ").append(size == 0 ? 0 : s.percentile(50))
+                    .append(", \"p95Ms\": ").append(p95)
+                    .append(", \"p99Ms\": ").append(size == 0 ? 0 : s.percentile(99))
+                    .append(", \"timeoutMs\": ").append(s.lastTimeoutMs)
+                    .append('}');
+            sep = ",\n";
+        }
+        json.append("\n}\n");
+        System.out.println("========================================================\n");
+
+        Path out = Paths.get(System.getProperty("user.dir"), "target", "metrics", "waits.json");
+        try {
+            Files.createDirectories(out.getParent());
+            Files.writeString(out, json, StandardCharsets.UTF_8);
+            save();
+            System.out.println("[Metrics] " + out.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("[Metrics] export failed: " + e.getMessage());
+        }
+    }
+
+    private static void load() {
+        if (!Files.exists(HISTORY)) return;
+        try {
+            for (String line : Files.readAllLines(HISTORY, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0 || line.lastIndexOf('|', tab) < 0) continue; // no context: older format
+                Series s = series(line.substring(0, tab));
+                for (String v : line.substring(tab + 1).split(",")) {
+                    if (!v.isBlank()) s.add(Long.parseLong(v.trim()));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("[Wait] ignoring history " + HISTORY + ": " + e.getMessage());
+        }
+    }
+
+    private static void save() throws IOException {
+        Files.createDirectories(HISTORY.toAbsolutePath().getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(HISTORY, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Series> e : new TreeMap<>(SERIES).entrySet()) {
+                long[] samples = e.getValue().ordered();
+                if (samples.length == 0) continue;
+                out.write(e.getKey());
+                out.write('\t');
+                for (int i = 0; i < samples.length; i++) {
+                    if (i > 0) out.write(',');
+                    out.write(Long.toString(samples[i]));
+                }
+                out.newLine();
+            }
+        }
+    }
+
+    // --------- helpers ---------
+
+    private static <T> T await(WebDriver driver, String key, Function<WebDriver, T> condition, boolean optional) {
+        Series s = series(contextKey(key));
+        Duration timeout = timeoutFor(key, optional);
+        s.lastTimeoutMs = timeout.toMillis();
+        s.waits.increment();
+        long t0 = System.nanoTime();
+        try {
+            T value = DomWaits.until(driver, timeout, condition);
+            s.add((System.nanoTime() - t0) / 1_000_000);
+            return value;
+        } catch (TimeoutException e) {
+            s.timeouts.increment();
+            if (optional || timeout.toMillis() >= REQUIRED_CAP_MS) {
+                throw new TimeoutException("[" + key + "] " + e.getMessage(), e);
+            }
+        }
+
+        // learned timeout too short for this run: record the miss at the cap, wait out the rest of the cap
+        s.add(REQUIRED_CAP_MS);
+        try {
+            return DomWaits.until(driver, Duration.ofMillis(REQUIRED_CAP_MS - timeout.toMillis()), condition);
+        } catch (TimeoutException e) {
+            throw new TimeoutException("[" + key + "] not met within " + REQUIRED_CAP_MS + " ms", e);
+        }
+    }
+
+    private static String contextKey(String key) {
+        return CONTEXT.get() + '|' + key;
+    }
+
+    private static Series series(String key) {
+        return SERIES.computeIfAbsent(key, k -> new Series());
+    }
+
+    private static void sleep(long ms) {
+        try { Thread.sleep(ms); } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,37 +2,157 @@
 package base;
 
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.edge.EdgeDriver;
-import org.openqa.selenium.firefox.FirefoxDriver;
+import org.testng.ITestResult;
 import org.testng.annotations.*;
+import utils.CommandRecorder;
+import utils.ExcelResultWriter;
+import utils.LocatorCache;
+import utils.NetworkShaper;
+import utils.ReplayArchive;
+import utils.ReplayServer;
+import utils.ResultSinks;
+import utils.ScreenshotUtil;
+import utils.StepMetrics;
+import utils.WaitPolicy;
 
-import java.time.Duration;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BaseTest {
 
-    protected WebDriver driver;
+    // Thread-confined: parallel data-provider invocations share one test instance
+    private static final ThreadLocal<WebDriver> DRIVER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> POOLED = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<String> BROWSER = new ThreadLocal<>();
+    private static final ThreadLocal<String> PROFILE = new ThreadLocal<>();
+    private static final ThreadLocal<String> BASE_URL = new ThreadLocal<>();
+    private static final ThreadLocal<String> ROW_KEY = new ThreadLocal<>();
 
-    @Parameters("browser")
-    @BeforeMethod(alwaysRun = true)
-    public void setUp(@Optional("chrome") String browser) {
-        switch (browser.toLowerCase()) {
-            case "chrome" -> driver = new ChromeDriver();   // Selenium Manager resolves driver
-            case "edge"   -> driver = new EdgeDriver();
-            case "firefox"-> driver = new FirefoxDriver();
-            default -> throw new IllegalArgumentException("Unsupported browser: " + browser);
+    /** Test result attribute holding the row key, read by GridRetry. */
+    static final String ROW_KEY_ATTRIBUTE = "rowKey";
+
+    // TestNG hands @BeforeMethod the same row array on every retry of a data row (and another array
+    // to an identical row), so the array identity tells invocations apart
+    private static final Map<Object[], Integer> ROW_IDS = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final AtomicInteger NEXT_ROW_ID = new AtomicInteger();
+
+    public static final String LIVE_BASE_URL = "https://trivago.in/";
+
+    // -Dreplay=true: one local ReplayServer for the whole suite
+    private static volatile ReplayServer replay;
+
+    /** Browser session owned by the current test thread; launched/leased on first use. */
+    protected WebDriver driver() {
+        WebDriver driver = DRIVER.get();
+        if (driver == null) {
+            String browser = BROWSER.get();
+            String profile = PROFILE.get();
+            if (GridScheduler.enabled()) {
+                driver = GridScheduler.lease(browser, profile, ROW_KEY.get());
+            } else {
+                driver = POOLED.get() ? DriverPool.lease(browser, profile) : DriverFactory.create(browser, profile);
+            }
+            DRIVER.set(driver);
+        }
+        return driver;
+    }
+
+    /** Start page of the site under test (live site, configured URL or the local ReplayServer). */
+    protected String baseUrl() {
+        return BASE_URL.get();
+    }
+
+    /**
+     * -Dreplay=true serves the site from a local ReplayServer: responses recorded with
+     * -Dreplay.record=true (replay.dir) first, the bundled stand-in site otherwise.
+     * replay.port picks a fixed port (default: any free port).
+     */
+    @BeforeSuite(alwaysRun = true)
+    public void startReplay() throws IOException {
+        if (Boolean.getBoolean("replay") && replay == null) {
+            replay = ReplayServer.start(ReplayArchive.defaultArchive(), Integer.getInteger("replay.port", 0));
         }
-        driver.manage().window().maximize();
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(0));
-        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(60));
-        driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(30));
+    }
 
+    /**
+     * driverPool=true leases a warm session from DriverPool instead of launching
+     * a fresh browser per data row (see DriverPool for size / recycle settings).
+     * The session itself is only started when the test first calls driver(),
+     * so rows served from the result cache never start a browser.
+     * profile selects a DriverFactory launch profile (default / fast-headless).
+     * baseUrl (or -DbaseUrl) points the run at another deployment; ignored in replay mode.
+     * -Dgrid.nodes runs every row on a remote endpoint chosen by GridScheduler (driverPool is ignored).
+     */
+    @Parameters({"browser", "driverPool", "profile", "baseUrl"})
+    @BeforeMethod(alwaysRun = true)
+    public void setUp(@Optional("chrome") String browser, @Optional("false") String driverPool,
+                      @Optional(DriverFactory.DEFAULT_PROFILE) String profile,
+                      @Optional(LIVE_BASE_URL) String baseUrl, Method method, Object[] row, ITestResult result) {
+        ROW_KEY.set(rowKey(method.getName(), row));
+        result.setAttribute(ROW_KEY_ATTRIBUTE, ROW_KEY.get());
+        POOLED.set(Boolean.parseBoolean(System.getProperty("driverPool", driverPool)));
+        BROWSER.set(browser);
+        PROFILE.set(System.getProperty("profile", profile));
+        BASE_URL.set(replay != null ? replay.baseUrl() : System.getProperty("baseUrl", baseUrl));
+        // learned wait times are kept apart per site and launch profile (replay ports change per run)
+        String site = (replay != null) ? "replay" : String.valueOf(URI.create(BASE_URL.get()).getHost());
+        WaitPolicy.bindContext(site + "/" + PROFILE.get());
+        StepMetrics.bindBrowser(browser);
+        CommandRecorder.beginTest();
     }
 
     @AfterMethod(alwaysRun = true)
-    public void tearDown() {
+    public void tearDown(ITestResult result) {
+        String testName = result.getName() + Arrays.toString(result.getParameters());
+        CommandRecorder.endTest(testName);
+        WebDriver driver = DRIVER.get();
         if (driver != null) {
-            try { driver.quit(); } catch (Exception ignored) {}
+            NetworkShaper.Stats net = DriverFactory.takeNetworkStats(driver);
+            if (net != null) System.out.println("[Net] " + testName + ": " + net);
+
+            if (GridScheduler.enabled()) {
+                GridScheduler.release(driver, !result.isSuccess(), ROW_KEY.get());
+            } else if (POOLED.get()) {
+                DriverPool.release(driver);
+            } else {
+                DriverFactory.quit(driver);
+            }
+        }
+        DRIVER.remove();
+        POOLED.remove();
+        BROWSER.remove();
+        PROFILE.remove();
+        BASE_URL.remove();
+        ROW_KEY.remove();
+        StepMetrics.unbind();
+        WaitPolicy.unbind();
+    }
+
+    /** Identifies one data-provider row across its retries: test method + parameters + row id. */
+    static String rowKey(String method, Object[] row) {
+        return method + Arrays.toString(row) + "#" + ROW_IDS.computeIfAbsent(row, r -> NEXT_ROW_ID.incrementAndGet());
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void flushResults() {
+        DriverPool.shutdown();
+        GridScheduler.shutdown();
+        ResultSinks.closeAll();
+        ExcelResultWriter.closeAll();
+        ScreenshotUtil.drain();
+        StepMetrics.report();
+        CommandRecorder.report();
+        LocatorCache.report();
+        WaitPolicy.report();
+        if (replay != null) {
+            replay.close();
+            replay = null;
         }
     }
 }
\ No newline at end of file
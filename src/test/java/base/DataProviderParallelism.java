@@ -0,0 +1,22 @@
+
+package base;
+
+import org.testng.IAnnotationTransformer;
+import org.testng.annotations.IDataProviderAnnotation;
+
+import java.lang.reflect.Method;
+
+/**
+ * Turns data providers parallel when -Ddataprovider.parallel=true.
+ * Worker count comes from data-provider-thread-count in testng.xml
+ * (or -Ddataproviderthreadcount through Surefire).
+ **/
+public class DataProviderParallelism implements IAnnotationTransformer {
+
+    @Override
+    public void transform(IDataProviderAnnotation annotation, Method method) {
+        if (Boolean.getBoolean("dataprovider.parallel")) {
+            annotation.setParallel(true);
+        }
+    }
+}
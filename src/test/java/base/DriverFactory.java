@@ -0,0 +1,216 @@
+
+package base;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import utils.CommandRecorder;
+import utils.NetworkShaper;
+import utils.ReplayArchive;
+import utils.StepMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Launches a local browser session with the suite's standard window/timeout settings.
+ * While StepMetrics is enabled the session is decorated with a CommandRecorder.
+ *
+ * Launch profiles (testng.xml parameter / -Dprofile):
+ *   default       visible, maximized, browser defaults
+ *   fast-headless headless 1920x1080, eager page loads, no images (Firefox: no web fonts either),
+ *                 known trackers unresolvable, throwaway profile dir on tmpfs (/dev/shm)
+ *
+ * -Dnet.shaping=true additionally attaches a NetworkShaper (Chromium only) that blocks
+ * unwanted URLs and serves repeated static assets from a local disk cache.
+ * -Dreplay.record=true records fetched HTML / JSON responses into the ReplayArchive
+ * (replay.dir, default test-data/replay) for later offline runs against a ReplayServer.
+ *
+ * createRemote() starts the same profiles on a Selenium Grid / standalone endpoint (see GridScheduler);
+ * there the browser keeps its own profile dir and network shaping / recording are not attached.
+ */
+public final class DriverFactory {
+
+    public static final String DEFAULT_PROFILE = "default";
+    public static final String FAST_HEADLESS = "fast-headless";
+
+    private static final Dimension VIEWPORT = new Dimension(1920, 1080);
+    private static final boolean NET_SHAPING = Boolean.getBoolean("net.shaping");
+    private static final ReplayArchive RECORD_TO =
+            Boolean.getBoolean("replay.record") ? ReplayArchive.defaultArchive() : null;
+    private static final Map<WebDriver, NetworkShaper> SHAPERS = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, Path> PROFILE_DIRS = new ConcurrentHashMap<>();
+
+    /** Ad / analytics hosts that never matter for the scrape. */
+    private static final List<String> TRACKER_HOSTS = List.of(
+            "*.doubleclick.net", "*.googlesyndication.com", "*.google-analytics.com",
+            "*.googletagmanager.com", "*.googleadservices.com", "*.facebook.net",
+            "*.hotjar.com", "*.criteo.com", "*.adnxs.com", "*.taboola.com");
+
+    private DriverFactory() {}
+
+    public static WebDriver create(String browser, String profile) {
+        boolean fast = isFast(profile);
+        String b = browser.toLowerCase();
+        if (!b.equals("chrome") && !b.equals("edge") && !b.equals("firefox")) {
+            throw new IllegalArgumentException("Unsupported browser: " + browser);
+        }
+        // deleted again in quit(), so a long RunSet does not pile profiles up in tmpfs
+        Path profileDir = fast ? scratchProfileDir(b.equals("firefox") ? "firefox" : "chromium") : null;
+
+        WebDriver driver;
+        try {
+            switch (b) {
+                case "chrome" -> driver = new ChromeDriver(chromium(new ChromeOptions(), fast, profileDir));   // Selenium Manager resolves driver
+                case "edge"   -> driver = new EdgeDriver(chromium(new EdgeOptions(), fast, profileDir));
+                default       -> driver = new FirefoxDriver(firefox(fast, profileDir));
+            }
+        } catch (RuntimeException e) {
+            if (profileDir != null) deleteQuietly(profileDir);
+            throw e;
+        }
+        configure(driver, fast);
+
+        // attach to the raw session, before decoration
+        NetworkShaper shaper = (NET_SHAPING || RECORD_TO != null)
+                ? NetworkShaper.attach(driver, NET_SHAPING, RECORD_TO) : null;
+
+        driver = decorate(driver);
+        if (shaper != null) SHAPERS.put(driver, shaper);
+        if (profileDir != null) PROFILE_DIRS.put(driver, profileDir);
+        return driver;
+    }
+
+    /** Session on a remote endpoint (Grid hub or standalone server) with the same launch profile. */
+    public static WebDriver createRemote(URL endpoint, String browser, String profile) {
+        boolean fast = isFast(profile);
+
+        Capabilities options = switch (browser.toLowerCase()) {
+            case "chrome" -> chromium(new ChromeOptions(), fast, null);
+            case "edge"   -> chromium(new EdgeOptions(), fast, null);
+            case "firefox"-> firefox(fast, null);
+            default -> throw new IllegalArgumentException("Unsupported browser: " + browser);
+        };
+        WebDriver driver = new RemoteWebDriver(endpoint, options);
+        configure(driver, fast);
+        return decorate(driver);
+    }
+
+    private static void configure(WebDriver driver, boolean fast) {
+        if (fast) {
+            driver.manage().window().setSize(VIEWPORT);
+        } else {
+            driver.manage().window().maximize();
+        }
+        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(0));
+        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(60));
+        driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(30));
+    }
+
+    private static WebDriver decorate(WebDriver driver) {
+        if (!StepMetrics.enabled()) return driver;
+        return new EventFiringDecorator<WebDriver>(new CommandRecorder()).decorate(driver);
+    }
+
+    /** Network counters of this session since the last call, or null when shaping is off. */
+    public static NetworkShaper.Stats takeNetworkStats(WebDriver driver) {
+        NetworkShaper shaper = SHAPERS.get(driver);
+        return (shaper == null) ? null : shaper.take();
+    }
+
+    /** Quits the session and releases anything attached to it (network shaper, scratch profile dir). */
+    public static void quit(WebDriver driver) {
+        NetworkShaper shaper = SHAPERS.remove(driver);
+        if (shaper != null) shaper.close();
+        try { driver.quit(); } catch (Exception ignored) {}
+        Path profileDir = PROFILE_DIRS.remove(driver);
+        if (profileDir != null) deleteQuietly(profileDir);
+    }
+
+    private static boolean isFast(String profile) {
+        String p = (profile == null) ? DEFAULT_PROFILE : profile.toLowerCase();
+        return switch (p) {
+            case DEFAULT_PROFILE -> false;
+            case FAST_HEADLESS -> true;
+            default -> throw new IllegalArgumentException("Unsupported launch profile: " + profile);
+        };
+    }
+
+    // --------- profiles ---------
+
+    /** profileDir null leaves the profile to the browser (remote sessions). */
+    private static <T extends ChromiumOptions<T>> T chromium(T options, boolean fast, Path profileDir) {
+        if (!fast) return options;
+
+        options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+        options.addArguments(
+                "--headless=new",
+                "--window-size=" + VIEWPORT.getWidth() + "," + VIEWPORT.getHeight(),
+                "--disable-gpu",
+                "--disable-extensions",
+                "--no-first-run",
+                "--mute-audio",
+                "--blink-settings=imagesEnabled=false",
+                "--host-resolver-rules=" + String.join(", ",
+                        TRACKER_HOSTS.stream().map(h -> "MAP " + h + " ~NOTFOUND").toList()));
+        if (profileDir != null) options.addArguments("--user-data-dir=" + profileDir);
+        options.setExperimentalOption("prefs", Map.of(
+                "profile.managed_default_content_settings.images", 2));
+        return options;
+    }
+
+    private static FirefoxOptions firefox(boolean fast, Path profileDir) {
+        FirefoxOptions options = new FirefoxOptions();
+        if (!fast) return options;
+
+        options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+        options.addArguments(
+                "-headless",
+                "--width=" + VIEWPORT.getWidth(), "--height=" + VIEWPORT.getHeight());
+        if (profileDir != null) options.addArguments("-profile", profileDir.toString());
+        options.addPreference("permissions.default.image", 2);
+        options.addPreference("gfx.downloadable_fonts.enabled", false);
+        options.addPreference("privacy.trackingprotection.enabled", true);
+        options.addPreference("browser.contentblocking.category", "strict");
+        return options;
+    }
+
+    /** Fresh profile dir on tmpfs when available; removed when its session quits. */
+    private static Path scratchProfileDir(String prefix) {
+        Path shm = Paths.get("/dev/shm");
+        try {
+            Path dir = Files.isDirectory(shm) && Files.isWritable(shm)
+                    ? Files.createTempDirectory(shm, "e2e-" + prefix + "-")
+                    : Files.createTempDirectory("e2e-" + prefix + "-");
+            return dir;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create browser profile dir", e);
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException ignored) {}
+    }
+}
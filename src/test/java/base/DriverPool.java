@@ -0,0 +1,125 @@
+
+package base;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounded pool of warm browser sessions, keyed by browser type and launch profile.
+ * - lease() hands out an idle session (or launches one while under pool.size)
+ * - release() resets the session (storage, cookies, about:blank) and returns it
+ * - sessions are recycled after pool.maxUses leases or when unhealthy
+ *
+ * System properties:
+ *   pool.size    (default 2)  max concurrent sessions per browser
+ *   pool.maxUses (default 20) leases before a session is quit and relaunched
+ **/
+public final class DriverPool {
+
+    private static final int MAX_PER_BROWSER = Integer.getInteger("pool.size", 2);
+    private static final int MAX_USES = Integer.getInteger("pool.maxUses", 20);
+
+    private static final Map<String, BlockingDeque<WebDriver>> IDLE = new ConcurrentHashMap<>();
+    private static final Map<String, Semaphore> PERMITS = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, Lease> LEASED = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, Integer> USES = new ConcurrentHashMap<>();
+
+    private record Lease(String key) {}
+
+    private DriverPool() {}
+
+    /** Blocks while pool.size sessions of this browser/profile are already leased. */
+    public static WebDriver lease(String browser, String profile) {
+        String key = browser.toLowerCase() + "/" + profile.toLowerCase();
+        Semaphore permits = PERMITS.computeIfAbsent(key, k -> new Semaphore(MAX_PER_BROWSER, true));
+        permits.acquireUninterruptibly();
+
+        try {
+            WebDriver driver;
+            while ((driver = idle(key).pollFirst()) != null) {
+                if (isHealthy(driver)) break;
+                quit(driver);
+            }
+            if (driver == null) {
+                driver = DriverFactory.create(browser, profile);
+                System.out.println("[Pool] Launched new " + key + " session");
+            }
+            LEASED.put(driver, new Lease(key));
+            USES.merge(driver, 1, Integer::sum);
+            return driver;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Return a leased session; it is reset for reuse or quit if worn out / unhealthy. */
+    public static void release(WebDriver driver) {
+        if (driver == null) return;
+        Lease lease = LEASED.remove(driver);
+        if (lease == null) {
+            quit(driver);
+            return;
+        }
+
+        try {
+            if (USES.getOrDefault(driver, 0) >= MAX_USES || !reset(driver)) {
+                quit(driver);
+            } else {
+                idle(lease.key()).offerFirst(driver);
+            }
+        } finally {
+            PERMITS.get(lease.key()).release();
+        }
+    }
+
+    /** Quit every idle and leased session (suite end). */
+    public static void shutdown() {
+        for (BlockingDeque<WebDriver> q : IDLE.values()) {
+            WebDriver d;
+            while ((d = q.pollFirst()) != null) quit(d);
+        }
+        for (WebDriver d : LEASED.keySet()) quit(d);
+        LEASED.clear();
+    }
+
+    // --------- helpers ---------
+
+    private static BlockingDeque<WebDriver> idle(String key) {
+        return IDLE.computeIfAbsent(key, k -> new LinkedBlockingDeque<>());
+    }
+
+    private static boolean reset(WebDriver driver) {
+        try {
+            // storage is per-origin, so clear it before leaving the page
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Pool] Reset failed, recycling session: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void quit(WebDriver driver) {
+        USES.remove(driver);
+        DriverFactory.quit(driver);
+    }
+}
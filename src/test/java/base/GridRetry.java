@@ -0,0 +1,27 @@
+package base;
+
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retries a failed row once in grid mode; GridScheduler sends the retry to another endpoint
+ * when one is free. Without -Dgrid.nodes a failure is final, as before.
+ * Retries are counted per data-provider row (BaseTest's row key), so identical RunSet rows
+ * get one retry each.
+ **/
+public class GridRetry implements IRetryAnalyzer {
+
+    private static final Set<String> RETRIED = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean retry(ITestResult result) {
+        if (!GridScheduler.enabled()) return false;
+        Object key = result.getAttribute(BaseTest.ROW_KEY_ATTRIBUTE);
+        if (key == null || !RETRIED.add(key.toString())) return false;
+        System.out.println("[Grid] Retrying " + key);
+        return true;
+    }
+}
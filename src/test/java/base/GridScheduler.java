@@ -0,0 +1,273 @@
+package base;
+
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads RunSet rows over remote Selenium endpoints (-Dgrid.nodes), one RemoteWebDriver session per row.
+ * - Each endpoint is a standalone server or a hub; its slot count comes from GET /status (sum of maxSessions)
+ * - lease() picks the healthy endpoint with the lowest (busy + 1) / slots x typical row time, so slow
+ *   endpoints get fewer rows; it blocks while every slot is busy
+ * - /status is polled every grid.healthSeconds; an endpoint that is not ready, fails to start a session
+ *   or fails two rows in a row is skipped for grid.cooldownSeconds
+ * - A failed row is retried once (GridRetry), on another endpoint when one is available
+ *
+ * System properties:
+ *   grid.nodes               comma-separated endpoint URLs (e.g. http://localhost:4444,http://localhost:5555)
+ *   grid.healthSeconds       (default 10)
+ *   grid.cooldownSeconds     (default 60)
+ *   grid.leaseTimeoutSeconds (default 600)
+ **/
+public final class GridScheduler {
+
+    private static final List<Node> NODES = parseNodes(System.getProperty("grid.nodes", ""));
+    private static final long HEALTH_SECONDS = Long.getLong("grid.healthSeconds", 10L);
+    private static final long COOLDOWN_MILLIS = Long.getLong("grid.cooldownSeconds", 60L) * 1000;
+    private static final long LEASE_TIMEOUT_MILLIS = Long.getLong("grid.leaseTimeoutSeconds", 600L) * 1000;
+    private static final double EWMA_ALPHA = 0.3;
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(3)).build();
+    private static final Map<WebDriver, Lease> LEASED = new ConcurrentHashMap<>();
+    private static final Map<String, Node> AVOID_ON_RETRY = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+    private static ScheduledExecutorService healthChecks;
+    private static CountDownLatch firstPoll; // counted down once every endpoint has been polled once
+
+    private static final class Node {
+        final URL url;
+        int slots = 1, busy, rows, failedRows, consecutiveFailures;
+        boolean ready = true;
+        long skipUntil;
+        double typicalRowMs; // 0 = no finished row yet
+
+        Node(URL url) {
+            this.url = url;
+        }
+
+        boolean usable(long now) {
+            return ready && now >= skipUntil;
+        }
+    }
+
+    private record Lease(Node node, long startedNanos) {}
+
+    private GridScheduler() {}
+
+    public static boolean enabled() {
+        return !NODES.isEmpty();
+    }
+
+    /**
+     * Remote session on the least-loaded usable endpoint. rowKey identifies the data row, so a retry
+     * avoids the endpoint the row failed on.
+     */
+    public static WebDriver lease(String browser, String profile, String rowKey) {
+        startHealthChecks();
+        Node avoid = AVOID_ON_RETRY.remove(rowKey);
+        long deadline = System.currentTimeMillis() + LEASE_TIMEOUT_MILLIS;
+        while (true) {
+            Node node = reserve(avoid, deadline);
+            try {
+                WebDriver driver = DriverFactory.createRemote(node.url, browser, profile);
+                LEASED.put(driver, new Lease(node, System.nanoTime()));
+                System.out.println("[Grid] " + rowKey + " -> " + node.url);
+                return driver;
+            } catch (RuntimeException e) {
+                System.err.println("[Grid] Session start failed on " + node.url + ": "
+                        + String.valueOf(e.getMessage()).lines().findFirst().orElse(""));
+                synchronized (LOCK) {
+                    node.busy--;
+                    node.skipUntil = System.currentTimeMillis() + COOLDOWN_MILLIS;
+                    LOCK.notifyAll();
+                }
+            }
+        }
+    }
+
+    /** Quits the session; failed rows count against the endpoint, finished ones update its typical row time. */
+    public static void release(WebDriver driver, boolean failed, String rowKey) {
+        Lease lease = LEASED.remove(driver);
+        DriverFactory.quit(driver);
+        if (lease == null) return;
+
+        Node node = lease.node();
+        long elapsedMs = (System.nanoTime() - lease.startedNanos()) / 1_000_000;
+        synchronized (LOCK) {
+            node.busy--;
+            node.rows++;
+            if (failed) {
+                node.failedRows++;
+                if (++node.consecutiveFailures >= 2) {
+                    node.skipUntil = System.currentTimeMillis() + COOLDOWN_MILLIS;
+                    System.err.println("[Grid] " + node.url + " failed " + node.consecutiveFailures + " rows in a row; skipping it for a while");
+                }
+                AVOID_ON_RETRY.put(rowKey, node);
+            } else {
+                node.consecutiveFailures = 0;
+                node.typicalRowMs = (node.typicalRowMs == 0) ? elapsedMs
+                        : EWMA_ALPHA * elapsedMs + (1 - EWMA_ALPHA) * node.typicalRowMs;
+            }
+            LOCK.notifyAll();
+        }
+    }
+
+    /** Quits leased sessions, stops health checks and prints per-endpoint totals (suite end). */
+    public static void shutdown() {
+        if (!enabled()) return;
+        for (WebDriver d : LEASED.keySet()) DriverFactory.quit(d);
+        LEASED.clear();
+        synchronized (LOCK) {
+            if (healthChecks != null) healthChecks.shutdownNow();
+            healthChecks = null;
+            firstPoll = null;
+            System.out.println("========================= GRID =========================");
+            System.out.printf("%5s %5s %7s %12s  %s%n", "slots", "rows", "failed", "typical ms", "endpoint");
+            for (Node n : NODES) {
+                System.out.printf("%5d %5d %7d %12d  %s%n", n.slots, n.rows, n.failedRows, Math.round(n.typicalRowMs), n.url);
+            }
+            System.out.println("========================================================\n");
+        }
+    }
+
+    // --------- scheduling ---------
+
+    private static Node reserve(Node avoid, long deadline) {
+        synchronized (LOCK) {
+            while (true) {
+                long now = System.currentTimeMillis();
+                Node best = pick(avoid, now);
+                if (best == null && avoid != null) best = pick(null, now); // no other endpoint free
+                if (best != null) {
+                    best.busy++;
+                    return best;
+                }
+                long left = deadline - now;
+                if (left <= 0) throw new SessionNotCreatedException("No grid endpoint available: " + NODES.size() + " configured");
+                try {
+                    LOCK.wait(Math.min(left, 1_000)); // also re-checks cooldowns
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SessionNotCreatedException("Interrupted while waiting for a grid endpoint");
+                }
+            }
+        }
+    }
+
+    private static Node pick(Node avoid, long now) {
+        double fleetTypical = NODES.stream().mapToDouble(n -> n.typicalRowMs).filter(v -> v > 0).average().orElse(1);
+        Node best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (Node n : NODES) {
+            if (n == avoid || !n.usable(now) || n.busy >= n.slots) continue;
+            double typical = (n.typicalRowMs > 0) ? n.typicalRowMs : fleetTypical;
+            double score = (n.busy + 1.0) / n.slots * typical;
+            if (score < bestScore) {
+                best = n;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    // --------- health ---------
+
+    /**
+     * The first caller polls every endpoint (outside LOCK, results published by checkStatus) and then
+     * schedules the periodic polls; other callers wait for that first poll, so slot counts are known
+     * before the first assignment.
+     */
+    private static void startHealthChecks() {
+        CountDownLatch poll;
+        ScheduledExecutorService executor = null;
+        synchronized (LOCK) {
+            if (firstPoll == null) {
+                firstPoll = new CountDownLatch(1);
+                healthChecks = executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "grid-health");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            poll = firstPoll;
+        }
+        if (executor != null) {
+            try {
+                for (Node n : NODES) checkStatus(n);
+            } finally {
+                poll.countDown();
+            }
+            executor.scheduleWithFixedDelay(() -> NODES.forEach(GridScheduler::checkStatus),
+                    HEALTH_SECONDS, HEALTH_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+        try {
+            poll.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SessionNotCreatedException("Interrupted while waiting for the first grid health check");
+        }
+    }
+
+    /** GET /status: value.ready and the slot count (sum of maxSessions over the endpoint's nodes). */
+    private static void checkStatus(Node node) {
+        boolean ready = false;
+        int slots = node.slots;
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(node.url.toString().replaceAll("/+$", "") + "/status"))
+                    .timeout(Duration.ofSeconds(5)).GET().build();
+            HttpResponse<String> res = HTTP.send(req, HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() == 200) {
+                Map<String, Object> value = asMap(asMap(new Json().toType(res.body(), Map.class)).get("value"));
+                ready = Boolean.TRUE.equals(value.get("ready"));
+                int sum = 0;
+                if (value.get("nodes") instanceof List<?> nodes) {
+                    for (Object n : nodes) {
+                        if (asMap(n).get("maxSessions") instanceof Number max) sum += max.intValue();
+                    }
+                }
+                if (sum > 0) slots = sum;
+            }
+        } catch (Exception e) {
+            // unreachable or not a Selenium endpoint: not ready
+        }
+        synchronized (LOCK) {
+            if (node.ready != ready) System.out.println("[Grid] " + node.url + (ready ? " is ready" : " is not ready"));
+            node.ready = ready;
+            node.slots = Math.max(1, slots);
+            LOCK.notifyAll();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object o) {
+        return (o instanceof Map<?, ?> m) ? (Map<String, Object>) m : Map.of();
+    }
+
+    private static List<Node> parseNodes(String spec) {
+        List<Node> nodes = new ArrayList<>();
+        for (String s : spec.split(",")) {
+            if (s.isBlank()) continue;
+            try {
+                nodes.add(new Node(URI.create(s.trim()).toURL()));
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Bad grid.nodes entry: " + s, e);
+            }
+        }
+        return List.copyOf(nodes);
+    }
+}
@@ -2,41 +2,87 @@
 package tests;
 
 import base.BaseTest;
+import base.GridRetry;
+import org.openqa.selenium.WebDriver;
 import org.testng.Assert;
 import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
 import org.testng.annotations.Test;
 import pages.HomePage;
+import pages.HotelResult;
 import pages.SearchResultsPage;
-import utils.ExcelWriters;
+import utils.DestinationCache;
+import utils.ResultCache;
+import utils.ResultSink;
+import utils.ResultSinks;
+import utils.RunSetReader;
 import utils.ScreenshotUtil;
+import utils.StepMetrics;
 
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.xssf.usermodel.*;
-import java.io.FileInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  - Reads ALL valid rows from test-data/TestData.xlsx / SearchRuns
  - Each row => City, CheckIn(yyyy-MM-dd), CheckOut(yyyy-MM-dd)
- - Each row performs full E2E automation in a clean browser session
+ - Each row performs full E2E automation in a clean (fresh or pool-reset) browser session
  - Excel output: each city gets its own sheet in CityResults.xlsx
- - Screenshots saved under: target/screenshots/
+   (-Dresults.format=csv|jsonl|columnar writes CityResults.<ext> instead, see ResultSinks)
+ - Screenshots saved under: target/screenshots/<City>_<CheckIn>_<CheckOut>/
+ - Rows run in parallel with -Ddataprovider.parallel=true (see DataProviderParallelism)
+ - Step timings / WebDriver command counts: target/metrics/step-timings.json (-Dmetrics=false to disable)
+ - Scraped pages are cached under target/result-cache/; -De2e.mode=cached serves fresh
+   entries straight to Excel and only opens a browser for misses
+ - -Dreplay=true runs against a local ReplayServer instead of the live site (see BaseTest)
+ - -Dgrid.nodes spreads rows over remote Selenium endpoints (GridScheduler); a failed row is retried
+   once on another endpoint, and all rows still go to the one result workbook
+ - -Dsearch.mode=url opens the results URL of a known city directly (DestinationCache); the UI flow
+   still runs for unknown cities (to learn them) and for a search.uiSample share of rows, where
+   the destination it ends on is checked against the cached one
  **/
 
 public class E2EHotelSearchTest extends BaseTest {
 
     private static final String INPUT_FILE  = "RunSet.xlsx";
     private static final String INPUT_SHEET = "SearchRuns";
-    private static final String OUTPUT_FILE = "CityResults.xlsx";
+    private static final String OUTPUT_BASE = "CityResults";
+    private static final String SORT_ORDER  = "top-guest-ratings";
+
+    private static final boolean CACHED_MODE = "cached".equalsIgnoreCase(System.getProperty("e2e.mode"));
+    private static final ResultCache CACHE = ResultCache.defaultCache();
+
+    private static final boolean URL_MODE = "url".equalsIgnoreCase(System.getProperty("search.mode", "ui"));
+    private static final double UI_SAMPLE = Double.parseDouble(System.getProperty("search.uiSample", "0.1"));
+    private static final DestinationCache DESTINATIONS = DestinationCache.defaultCache();
+    private static final int ADULTS = 1;       // adjustGuests() leaves one adult
+
+    // Result pages scraped per row (testng.xml parameter / -Dpages)
+    private int pages;
+
+    // Open RunSet stream; closed after the class so an abandoned data provider stops its parser thread
+    private RunSetReader runSet;
+
+    // Rows of the same city share a sheet; their clear + write sequence must not interleave
+    private static final Map<String, ReentrantLock> SHEET_LOCKS = new ConcurrentHashMap<>();
+
+    @Parameters("pages")
+    @BeforeClass(alwaysRun = true)
+    public void configure(@Optional("2") String pages) {
+        this.pages = Math.max(1, Integer.parseInt(System.getProperty("pages", pages).trim()));
+    }
 
     // --------------------- DATA PROVIDER --------------------- //
+    /** Rows are streamed (SAX) and validated as they are parsed; TestNG starts on the first valid one. */
     @DataProvider(name = "searchData")
-    public Object[][] searchData() throws Exception {
+    public Iterator<Object[]> searchData() throws Exception {
 
         Path input = Path.of(System.getProperty("user.dir"), "test-data", INPUT_FILE);
 
@@ -44,120 +90,198 @@ public class E2EHotelSearchTest extends BaseTest {
             throw new SkipException("Input Excel not found at " + input);
         }
 
-        List<Object[]> validRows = new ArrayList<>();
+        RunSetReader rows = RunSetReader.open(input, INPUT_SHEET);
+        if (rows == null) {
+            throw new SkipException("Sheet '" + INPUT_SHEET + "' not found in " + input);
+        }
+        runSet = rows;
+        if (!rows.hasNext()) {
+            throw new SkipException("No valid rows found in " + INPUT_FILE + " / " + INPUT_SHEET);
+        }
 
-        try (FileInputStream fi = new FileInputStream(input.toFile());
-             XSSFWorkbook wb = new XSSFWorkbook(fi)) {
+        System.out.println("==================== DATA PROVIDER ====================");
+        System.out.println("Streaming valid rows from " + INPUT_FILE + " / " + INPUT_SHEET);
+        System.out.println("========================================================\n");
 
-            XSSFSheet ws = wb.getSheet(INPUT_SHEET);
-            if (ws == null) {
-                throw new SkipException("Sheet '" + INPUT_SHEET + "' not found in " + input);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
             }
 
-            DataFormatter fmt = new DataFormatter();
-            int last = ws.getLastRowNum();
+            @Override
+            public Object[] next() {
+                Object[] row = rows.next();
+                System.out.println("ROW: " + Arrays.toString(row));
+                return row;
+            }
+        };
+    }
 
-            for (int r = 1; r <= last; r++) { // row=1 => Excel row 2
-                XSSFRow row = ws.getRow(r);
-                if (row == null) continue;
+    @AfterClass(alwaysRun = true)
+    public void closeRunSet() {
+        if (runSet != null) runSet.close();
+    }
 
-                String city        = fmt.formatCellValue(row.getCell(0));
-                String checkInStr  = fmt.formatCellValue(row.getCell(1));
-                String checkOutStr = fmt.formatCellValue(row.getCell(2));
+    // --------------------- SINGLE E2E FLOW PER ROW --------------------- //
+    @Test(dataProvider = "searchData", retryAnalyzer = GridRetry.class)
+    public void e2e_flow_excel(String city, String checkInStr, String checkOutStr) throws Exception {
 
-                if (isBlank(city) || isBlank(checkInStr) || isBlank(checkOutStr))
-                    continue;
+        LocalDate checkIn  = LocalDate.parse(checkInStr);
+        LocalDate checkOut = LocalDate.parse(checkOutStr);
+        StepMetrics.bindCity(city);
 
-                // Validate date format
-                LocalDate ci, co;
-                try {
-                    ci = LocalDate.parse(checkInStr.trim());
-                    co = LocalDate.parse(checkOutStr.trim());
-                } catch (DateTimeParseException e) {
-                    continue; // skip invalid date format
-                }
+        Path outputDir = Path.of(System.getProperty("user.dir"), "test-data");
 
-                if (!co.isAfter(ci)) continue; // skip invalid date order
+        // One shared sink per output file; drained and flushed at suite end (see BaseTest)
+        ResultSink excel = ResultSinks.open(outputDir, OUTPUT_BASE);
 
-                validRows.add(new Object[]{
-                        city.trim(),
-                        ci.toString(),
-                        co.toString()
-                });
+        // 0) Cache hit => no browser at all
+        if (CACHED_MODE) {
+            List<List<HotelResult>> cached = cachedPages(city, checkInStr, checkOutStr, pages);
+            if (cached != null) {
+                System.out.println("[Cache] Hit for " + city + " " + checkIn + ".." + checkOut);
+                Assert.assertFalse(cached.get(0).isEmpty(), "Cached first page is empty for " + city);
+                writeCityBlock(excel, city, checkIn, checkOut, cached);
+                return;
             }
         }
 
-        if (validRows.isEmpty()) {
-            throw new SkipException("No valid rows found in " + INPUT_FILE + " / " + INPUT_SHEET);
+        WebDriver driver = driver();
+        String shotDir = city + "_" + checkIn + "_" + checkOut;
+
+        HomePage home = new HomePage(driver);
+        SearchResultsPage results = new SearchResultsPage(driver);
+
+        // 1-6 via URL) known city => straight to the sorted results
+        DestinationCache.Destination destination = URL_MODE ? DESTINATIONS.get(city).orElse(null) : null;
+        boolean uiSample = destination != null && isUiSample(city, checkInStr, checkOutStr);
+        if (destination != null) {
+            StepMetrics.time("01_url", () -> {
+                results.open(DestinationCache.resultsUrl(destination, baseUrl(), checkIn, checkOut, ADULTS));
+                ScreenshotUtil.takeScreenshot(driver, shotDir, "01_results_by_url for " + city, "Info");
+            });
         }
 
-        System.out.println("==================== DATA PROVIDER ====================");
-        System.out.println("Total valid rows found: " + validRows.size());
-        for (Object[] arr : validRows) {
-            System.out.println("ROW: " + Arrays.toString(arr));
+        if (destination == null || uiSample) {
+            searchThroughUi(driver, home, results, city, checkIn, checkOut, shotDir);
+            if (uiSample) {
+                // destination identity, not listing order: rankings and prices churn between two loads
+                if (!DESTINATIONS.confirm(city, driver.getCurrentUrl())) {
+                    System.out.println("[FastPath] MISMATCH for " + city + ": UI flow ended on " + driver.getCurrentUrl()
+                            + ", cached " + destination + "; " + DESTINATIONS.get(city).map(d -> "relearned").orElse("forgotten"));
+                }
+            } else if (URL_MODE && !DESTINATIONS.learn(city, driver.getCurrentUrl())) {
+                System.out.println("[FastPath] Results URL not understood, " + city + " stays on the UI flow: "
+                        + driver.getCurrentUrl());
+            }
         }
-        System.out.println("========================================================\n");
 
-        return validRows.toArray(new Object[0][]);
+        // 7) Validate results exist
+        StepMetrics.time("07_validate", () -> {
+            results.waitUntilResultsPresent();
+            int count = results.getResultCount();
+            Assert.assertTrue(count > 0, "Expected > 0 results; actual: " + count);
+        });
+
+        // 8) pagination (step 09_pagination): first 'pages' pages, scraped outside the city's sheet lock
+        List<List<HotelResult>> written = StepMetrics.time("09_pagination",
+                () -> results.writeHotelsForFirstNPages(ResultSinks.discard(), city, pages));
+
+        // 9) Excel output (steps 08_excel*, each city has its own sheet): header block + all scraped rows
+        writeCityBlock(excel, city, checkIn, checkOut, written);
+
+        // 10) Remember pages for later cached runs (pages past the last one are stored empty)
+        for (int p = 1; p <= pages; p++) {
+            List<HotelResult> page = (p <= written.size()) ? written.get(p - 1) : List.of();
+            CACHE.put(new ResultCache.Key(city, checkInStr, checkOutStr, SORT_ORDER, p), page);
+        }
     }
 
-    // --------------------- SINGLE E2E FLOW PER ROW --------------------- //
-    @Test(dataProvider = "searchData")
-    public void e2e_flow_excel(String city, String checkInStr, String checkOutStr) throws Exception {
-
-        LocalDate checkIn  = LocalDate.parse(checkInStr);
-        LocalDate checkOut = LocalDate.parse(checkOutStr);
-
-        // 1) Open Trivago
-        driver.get("https://trivago.in/");
-        ScreenshotUtil.takeScreenshot(driver, "01_open_Trivago", "Info");
+    // ----------------------------- HELPERS ----------------------------- //
 
-        HomePage home = new HomePage(driver);
-        SearchResultsPage results = new SearchResultsPage(driver);
+    /** Steps 1-6 through the search form: destination, dates, guests, sort. */
+    private void searchThroughUi(WebDriver driver, HomePage home, SearchResultsPage results, String city,
+                                 LocalDate checkIn, LocalDate checkOut, String shotDir) {
+        // 1) Open Trivago (or the configured / replayed base URL)
+        StepMetrics.time("01_open", () -> {
+            driver.get(baseUrl());
+            ScreenshotUtil.takeScreenshot(driver, shotDir, "01_open_Trivago", "Info");
+        });
 
         // 2) City
-        home.enterDestination(city);
-        ScreenshotUtil.takeScreenshot(driver, "02_city_" + city, "Info");
+        StepMetrics.time("02_city", () -> {
+            home.enterDestination(city);
+            ScreenshotUtil.takeScreenshot(driver, shotDir, "02_city_" + city, "Info");
+        });
 
         // 3) Dates
-        home.selectDateRange(checkIn, checkOut);
-        ScreenshotUtil.takeScreenshot(driver, "03_dates_In/Out for " + city, "Info");
+        StepMetrics.time("03_dates", () -> {
+            home.selectDateRange(checkIn, checkOut);
+            ScreenshotUtil.takeScreenshot(driver, shotDir, "03_dates_In/Out for " + city, "Info");
+        });
 
         // 4) Guests
-        home.adjustGuests();
-        ScreenshotUtil.takeScreenshot(driver, "04_guests_set_to_1 for " + city, "Info");
+        StepMetrics.time("04_guests", () -> {
+            home.adjustGuests();
+            ScreenshotUtil.takeScreenshot(driver, shotDir, "04_guests_set_to_1 for " + city, "Info");
+        });
 
         // 5) Sort dropdown open
-        results.openSortDropdownOnly();
-        ScreenshotUtil.takeScreenshot(driver, "05_sort_open_dropdown for " + city, "Info");
+        StepMetrics.time("05_sort_open", () -> {
+            results.openSortDropdownOnly();
+            ScreenshotUtil.takeScreenshot(driver, shotDir, "05_sort_open_dropdown for " + city, "Info");
+        });
 
         // 6) Select Top Guest Ratings
-        results.selectTopGuestRatingsOnly();
-        ScreenshotUtil.takeScreenshot(driver, "06_sorted_Top_Guest_Ratings for " + city, "Info");
-
-        // 7) Validate results exist
-        results.waitUntilResultsPresent();
-        int count = results.getResultCount();
-        Assert.assertTrue(count > 0, "Expected > 0 results; actual: " + count);
+        StepMetrics.time("06_sort_apply", () -> {
+            results.selectTopGuestRatingsOnly();
+            ScreenshotUtil.takeScreenshot(driver, shotDir, "06_sorted_Top_Guest_Ratings for " + city, "Info");
+        });
+    }
 
-        // 8) Excel output (each city has its own sheet)
-        Path output = Path.of(System.getProperty("user.dir"), "test-data", OUTPUT_FILE);
+    /** Deterministic sample: the same rows re-run the UI flow on every run. */
+    private static boolean isUiSample(String city, String checkIn, String checkOut) {
+        int bucket = Math.floorMod((city.trim().toLowerCase(Locale.ROOT) + '|' + checkIn + '|' + checkOut).hashCode(), 1000);
+        return bucket < UI_SAMPLE * 1000;
+    }
 
+    /**
+     * Header/check-in block + rows for one city, never interleaved with another row of the same city.
+     * Only sink calls run under the city's lock; pages are scraped (or read from the cache) before.
+     */
+    private static void writeCityBlock(ResultSink excel, String city,
+                                       LocalDate checkIn, LocalDate checkOut, List<List<HotelResult>> pages) {
+        ReentrantLock sheetLock = SHEET_LOCKS.computeIfAbsent(city, k -> new ReentrantLock());
+        sheetLock.lock();
         try {
-            ExcelWriters.ensureSheetWithHeaders(output.toString(), city);
-            ExcelWriters.clearDataKeepHeader(output.toString(), city);
-            ExcelWriters.writeCheckInOutSideBlock(output.toString(), city, checkIn, checkOut);
-        } catch (Exception e) {
-            System.err.println("[Excel] Failed writing header/check-in block: " + e.getMessage());
+            try {
+                StepMetrics.time("08_excel", () -> {
+                    excel.ensureSheetWithHeaders(city);
+                    excel.clearDataKeepHeader(city);
+                    excel.writeCheckInOutSideBlock(city, checkIn, checkOut);
+                });
+            } catch (Exception e) {
+                System.err.println("[Excel] Failed writing header/check-in block: " + e.getMessage());
+            }
+            StepMetrics.time("08_excel_rows", () -> {
+                for (List<HotelResult> page : pages) {
+                    for (HotelResult c : page) excel.appendHotelRow(city, c);
+                }
+            });
+        } finally {
+            sheetLock.unlock();
         }
-
-        // AFTER: write first 3 pages (only first page screenshots are already taken)
-        results.writeHotelsForFirstNPages(output.toString(), city, 2);
-
     }
 
-    // ----------------------------- HELPERS ----------------------------- //
-    private static boolean isBlank(String s) {
-        return s == null || s.trim().isEmpty();
+    /** All 'pages' pages from the cache, or null if any of them is missing or stale. */
+    private static List<List<HotelResult>> cachedPages(String city, String checkIn, String checkOut, int pages) {
+        List<List<HotelResult>> cached = new ArrayList<>();
+        for (int p = 1; p <= pages; p++) {
+            var page = CACHE.get(new ResultCache.Key(city, checkIn, checkOut, SORT_ORDER, p));
+            if (page.isEmpty()) return null;
+            cached.add(page.get());
+        }
+        return cached;
     }
 }
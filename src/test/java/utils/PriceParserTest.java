@@ -0,0 +1,38 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ - PriceParser.parsePriceMinor on scraped price texts (expected values in minor units)
+ - Covers western / Indian / space grouping, decimal commas, trailing text and lakh / crore suffixes
+ **/
+public class PriceParserTest {
+
+    @DataProvider(name = "prices")
+    public Object[][] prices() {
+        return new Object[][]{
+                {"₹4,599", 459_900L},
+                {"₹ 1,23,456", 12_345_600L},
+                {"₹1,23,45,678", 1_234_567_800L},
+                {"Total ₹12,345.50", 1_234_550L},
+                {"€1.234,56", 123_456L},
+                {"1 234 €", 123_400L},
+                {"CHF 1'234.5", 123_450L},
+                {"Rs. 4599", 459_900L},
+                {"₹4,599 2 nights", 459_900L},
+                {"₹4,599 200 nights", 459_900L},
+                {"₹4599 200", 459_900L},
+                {"₹1.5L", 15_000_000L},
+                {"₹2 Cr", 2_000_000_000L},
+                {"₹4,599 Lodge", 459_900L},
+                {"Price unavailable", PriceParser.NO_PRICE},
+        };
+    }
+
+    @Test(dataProvider = "prices")
+    public void parsesPriceMinor(String text, long expected) {
+        Assert.assertEquals(PriceParser.parsePriceMinor(text), expected, text);
+    }
+}